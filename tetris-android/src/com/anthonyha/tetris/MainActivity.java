@@ -13,6 +13,6 @@ public class MainActivity extends AndroidApplication {
         AndroidApplicationConfiguration cfg = new AndroidApplicationConfiguration();
         cfg.useGL20 = false;
         
-        initialize(new Tetris(), cfg);
+        initialize(new Tetris(new SentinelMemoryProbe()), cfg);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.anthonyha.tetris;
+
+import java.lang.ref.WeakReference;
+
+//Android has no java.lang.management, so collections are counted with a weakly held sentinel that each one clears.
+//Only notices one collection per check, which is enough at a few per second.
+public class SentinelMemoryProbe implements MemoryProbe {
+    private WeakReference<Object> sentinel = new WeakReference<Object>(new Object());
+    private long count;
+    
+    @Override
+    public long getHeapUsed() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    @Override
+    public long getHeapMax() {
+        return Runtime.getRuntime().maxMemory();
+    }
+    
+    @Override
+    public long getGcCount() {
+        if (sentinel.get() == null) {
+            ++count;
+            sentinel = new WeakReference<Object>(new Object());
+        }
+        return count;
+    }
+    
+    @Override
+    public long getGcTime() {
+        return -1;
+    }
+}
@@ -28,5 +28,15 @@ public abstract class AbstractMessageListener implements MessageListener {
 		// TODO Auto-generated method stub
 		
 	}
+	
+	@Override
+	public void beginBatch() {
+		
+	}
+	
+	@Override
+	public void endBatch() {
+		
+	}
 
 }
@@ -0,0 +1,127 @@
+package com.anthonyha.tetris;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Plays a range of seeded games headlessly across every core, streaming one fixed-size record per game.
+//Every game gets its own MessageSystem, TetrisBoard and InputPolicy, so the threads share no mutable state.
+public class BatchSimulator {
+
+	// A record is the game's seed followed by its final score, level, lines cleared and pieces locked
+	public static final int RECORD_SIZE = 8 + 4 * 4;
+
+	private static final int GAMES_PER_TASK = 64;
+
+	// The bot hardly ever tops out, so games are cut off here unless told otherwise
+	public static final int DEFAULT_MAX_PIECES = 500;
+
+	private final InputPolicy.Factory policyFactory;
+	private final int level;
+	private final int maxPieces;
+	private final int threads;
+
+	public BatchSimulator(InputPolicy.Factory policyFactory, int level, int maxPieces, int threads) {
+		this.policyFactory = policyFactory;
+		this.level = level;
+		this.maxPieces = maxPieces;
+		this.threads = threads;
+	}
+
+	// Plays the games seeded firstSeed to firstSeed + games - 1, writing their records to out in the order they finish
+	public void run(long firstSeed, long games, final OutputStream out) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> tasks = new ArrayList<Future<Void>>();
+
+		try {
+			for (long seed = firstSeed; seed < firstSeed + games; seed += GAMES_PER_TASK) {
+				final long taskFirstSeed = seed;
+				final int taskGames = (int) Math.min(GAMES_PER_TASK, firstSeed + games - seed);
+
+				tasks.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						ByteArrayOutputStream bytes = new ByteArrayOutputStream(taskGames * RECORD_SIZE);
+						DataOutputStream records = new DataOutputStream(bytes);
+						InputPolicy policy = policyFactory.create();
+
+						for (int i = 0; i < taskGames; ++i) {
+							playGame(taskFirstSeed + i, policy, records);
+						}
+
+						synchronized (out) {
+							bytes.writeTo(out);
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> task : tasks) {
+				task.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void playGame(long seed, InputPolicy policy, DataOutputStream records) throws IOException {
+		MessageSystem messageSystem = new MessageSystem();
+		TetrisBoard board = new TetrisBoard(seed, level, messageSystem);
+
+		policy.reset(seed);
+		while (!board.isLoss() && board.getPiecesLocked() < maxPieces) {
+			policy.act(board, messageSystem);
+			board.tick();
+		}
+
+		records.writeLong(seed);
+		records.writeInt(board.getScore());
+		records.writeInt(board.getLevel());
+		records.writeInt(board.getTotalLines());
+		records.writeInt(board.getPiecesLocked());
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3) {
+			System.err.println("Usage: BatchSimulator <first seed> <games> <output file> [threads] [max pieces per game, default 500] [level] [random|bot]");
+			System.exit(1);
+		}
+
+		long firstSeed = Long.parseLong(args[0]);
+		long games = Long.parseLong(args[1]);
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		int maxPieces = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_MAX_PIECES;
+		int level = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+		InputPolicy.Factory policyFactory = args.length > 6 && args[6].equals("bot") ? new TetrisBot.Factory() : new RandomInputPolicy.Factory();
+
+		BatchSimulator simulator = new BatchSimulator(policyFactory, level, maxPieces, threads);
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(args[2]));
+
+		long startTime = System.nanoTime();
+		try {
+			simulator.run(firstSeed, games, out);
+		} finally {
+			out.close();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+
+		System.out.printf("Played %d games of up to %d pieces on %d threads in %.2f s (%.0f games/s)%n", games, maxPieces, threads, seconds,
+				games / seconds);
+	}
+}
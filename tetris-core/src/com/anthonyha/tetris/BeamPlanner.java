@@ -0,0 +1,447 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Plans by a beam search over the active tetromino, the hold slot and every queued tetromino.
+//Every depth places one more piece: each stack in the beam is expanded into every placement of its next piece, with and without holding,
+//and the beamWidth best scoring stacks are kept for the next depth. The plan is the first placement on the way to the best stack
+//of the deepest depth searched.
+//The stacks of a depth are expanded on a work-stealing ForkJoinPool, every thread searching with its own PlacementSearch and heuristic.
+//Once the time budget of a plan runs out, the depth being expanded is dropped and the last complete depth is used.
+//Different orders of placements often build the same stack. Children are keyed by the Zobrist hash of their stack, their hold,
+//the pieces left and the lines cleared on the way, which together decide their score and their future. The score of a key is
+//looked up in a transposition table shared by the threads before evaluating it, and only one child of each key can be in the
+//candidates for the beam: the best scoring one, or the first offered of equal ones. Candidates are offered and merged in an
+//order fixed by the beam rather than by the threads, so a plan doesn't depend on how the threads were scheduled.
+public class BeamPlanner implements PlacementPlanner {
+
+	private static final TetrominoNames[] nameValues = TetrominoNames.values();
+	private static final int TRANSPOSITION_TABLE_BITS = 16;
+
+	private final PlacementHeuristic.Factory heuristicFactory;
+	private final int beamWidth;
+	private final long timeBudget;
+	private final ForkJoinPool pool;
+
+	// Every thread that expands stacks keeps its own buffers
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>();
+	private final TranspositionTable transpositions = new TranspositionTable(TRANSPOSITION_TABLE_BITS);
+
+	private final SearchState root = new SearchState();
+	private Node[] beam = new Node[0];
+	private Node[] nextBeam = new Node[0];
+	private int beamSize;
+
+	private int target = -1;
+
+	// Statistics of the last plan, and of every plan so far
+	private long lastNodes, lastTime;
+	private int lastDepth;
+	private long totalNodes, totalTime, totalTranspositions;
+
+	// Expands up to beamWidth stacks per depth, spending at most timeBudget nanoseconds per plan (0 for no limit) on pool's threads
+	public BeamPlanner(PlacementHeuristic.Factory heuristicFactory, int beamWidth, long timeBudget, ForkJoinPool pool) {
+		this.heuristicFactory = heuristicFactory;
+		this.beamWidth = beamWidth;
+		this.timeBudget = timeBudget > 0 ? timeBudget : Long.MAX_VALUE;
+		this.pool = pool;
+	}
+
+	@Override
+	public boolean plan(TetrisBoard board) {
+		root.capture(board);
+		transpositions.newSearch();
+		long startTime = System.nanoTime();
+
+		BlockGrid field = root.getField();
+		if (beam.length == 0 || beam[0].field.getWidth() != field.getWidth() || beam[0].field.getHeight() != field.getHeight()) {
+			beam = createNodes(field);
+			nextBeam = createNodes(field);
+		}
+
+		// The first depth expands the board itself, and is always searched however long it takes
+		Node first = beam[0];
+		first.field.set(field);
+		first.hash = root.getStackHash();
+		first.held = root.getHeld();
+		first.next = 0;
+		first.lines = 0;
+		first.score = 0f;
+		first.firstPlacement = -1;
+		first.firstHold = false;
+		beamSize = 1;
+
+		long nodes = 0;
+		int depth = 0;
+		while (depth == 0 || System.nanoTime() - startTime < timeBudget) {
+			Candidates candidates = pool.invoke(new ExpandTask(0, beamSize, depth, startTime, depth == 0 ? Long.MAX_VALUE : timeBudget));
+			nodes += candidates.nodes;
+			totalTranspositions += candidates.transpositions;
+
+			if (candidates.timedOut || candidates.count == 0) {
+				break;
+			}
+
+			keep(candidates, depth);
+			++depth;
+		}
+
+		Node best = beam[0];
+		for (int i = 1; i < beamSize; ++i) {
+			if (beam[i].score > best.score) {
+				best = beam[i];
+			}
+		}
+
+		lastNodes = nodes;
+		lastTime = System.nanoTime() - startTime;
+		lastDepth = depth;
+		totalNodes += lastNodes;
+		totalTime += lastTime;
+
+		target = best.firstPlacement;
+		return best.firstHold;
+	}
+
+	@Override
+	public int getTarget() {
+		return target;
+	}
+
+	// Number of placements evaluated by the last plan
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	// Number of pieces the last plan looked ahead
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	public double getLastNodesPerSecond() {
+		return lastTime > 0 ? lastNodes * 1e9 / lastTime : 0;
+	}
+
+	public long getTotalNodes() {
+		return totalNodes;
+	}
+
+	// Number of placements every plan so far found the score of in the transposition table, instead of evaluating them
+	public long getTotalTranspositions() {
+		return totalTranspositions;
+	}
+
+	public double getNodesPerSecond() {
+		return totalTime > 0 ? totalNodes * 1e9 / totalTime : 0;
+	}
+
+	private Node[] createNodes(BlockGrid field) {
+		Node[] nodes = new Node[beamWidth];
+		for (int i = 0; i < beamWidth; ++i) {
+			nodes[i] = new Node(field.getWidth(), field.getHeight());
+		}
+		return nodes;
+	}
+
+	// Builds the stacks of the next depth from the best candidates, and makes them the beam
+	private void keep(Candidates candidates, int depth) {
+		PlacementSearch search = getWorker().search;
+
+		for (int i = 0; i < candidates.count; ++i) {
+			Node parent = beam[candidates.parents[i]];
+			Node child = nextBeam[i];
+			Tetromino tetromino = SearchState.getTetromino(nameValues[candidates.pieces[i]]);
+
+			int lines = search.place(parent.field, tetromino, candidates.placements[i], child.field);
+			child.hash = candidates.hashes[i];
+			child.held = candidates.helds[i] >= 0 ? nameValues[candidates.helds[i]] : null;
+			child.next = candidates.nexts[i];
+			child.lines = parent.lines + lines;
+			child.score = candidates.scores[i];
+
+			if (depth == 0) {
+				child.firstPlacement = candidates.placements[i];
+				child.firstHold = candidates.holds[i];
+			} else {
+				child.firstPlacement = parent.firstPlacement;
+				child.firstHold = parent.firstHold;
+			}
+		}
+
+		Node[] swap = beam;
+		beam = nextBeam;
+		nextBeam = swap;
+		beamSize = candidates.count;
+	}
+
+	// Offers every placement of the next piece of a stack, with and without holding, as candidates
+	private void expand(int index, int depth, Candidates candidates, Worker worker) {
+		Node node = beam[index];
+		if (node.next >= root.getPieceCount()) {
+			return;
+		}
+
+		TetrominoNames piece = root.getPiece(node.next);
+		expand(index, depth, piece, node.held, node.next + 1, false, candidates, worker);
+
+		// Holding the first piece is only possible if the board allows it. Later pieces can always be held,
+		// but swapping a piece for one of the same name changes nothing.
+		if (node.next == 0 ? root.canHold() : node.held != piece) {
+			if (node.held != null) {
+				expand(index, depth, node.held, piece, node.next + 1, true, candidates, worker);
+			} else if (node.next + 1 < root.getPieceCount()) {
+				expand(index, depth, root.getPiece(node.next + 1), piece, node.next + 2, true, candidates, worker);
+			}
+		}
+	}
+
+	private void expand(int index, int depth, TetrominoNames piece, TetrominoNames held, int next, boolean hold, Candidates candidates, Worker worker) {
+		Node node = beam[index];
+		Tetromino tetromino = SearchState.getTetromino(piece);
+
+		// The active tetromino is searched from where it is now, and every other piece from where it spawns
+		int placements;
+		if (node.next == 0 && !hold) {
+			placements = worker.search.search(node.field, tetromino, root.getActiveX(), root.getActiveY(), root.getActiveRotation());
+		} else {
+			placements = worker.search.search(node.field, tetromino, root.getSpawnX(piece), root.getSpawnY(piece), RotationState.UP);
+		}
+
+		PlacementSearch search = worker.search;
+		for (int i = 0; i < placements; ++i) {
+			int placement = search.getPlacement(i);
+			int lines = search.place(node.field, tetromino, placement, worker.field);
+
+			// Without a line clear the placed blocks can be hashed in, but a clear moves rows and needs the whole field hashed
+			long hash;
+			if (lines == 0) {
+				hash = node.hash ^ Zobrist.hashBlocks(tetromino.getGrid(search.getRotationState(placement)), search.getX(placement), search.getY(placement));
+			} else {
+				hash = Zobrist.hashRows(worker.field, 0, worker.field.getHeight());
+			}
+
+			// The same stack with the same hold, pieces left to play and lines cleared scores the same and has the same future
+			int totalLines = node.lines + lines;
+			long key = hash ^ Zobrist.hashHold(held, true) ^ Zobrist.mix((long) next << 32 | totalLines);
+			long entry = transpositions.probe(key);
+
+			float score;
+			if (transpositions.isCurrent(entry)) {
+				score = TranspositionTable.getScore(entry);
+				++candidates.transpositions;
+			} else {
+				score = worker.heuristic.evaluate(worker.field, totalLines);
+				transpositions.store(key, score, depth);
+			}
+			candidates.offer(score, key, index, placement, hash, piece, held, next, hold);
+		}
+		candidates.nodes += placements;
+	}
+
+	private Worker getWorker() {
+		BlockGrid field = root.getField();
+		Worker worker = workers.get();
+
+		if (worker == null || worker.field.getWidth() != field.getWidth() || worker.field.getHeight() != field.getHeight()) {
+			worker = new Worker(field.getWidth(), field.getHeight(), heuristicFactory.create());
+			workers.set(worker);
+		}
+		return worker;
+	}
+
+	// Splits a range of the beam in halves until each task expands a single stack, so idle threads can steal the other halves
+	private class ExpandTask extends RecursiveTask<Candidates> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to, depth;
+		private final long startTime, timeBudget;
+
+		public ExpandTask(int from, int to, int depth, long startTime, long timeBudget) {
+			this.from = from;
+			this.to = to;
+			this.depth = depth;
+			this.startTime = startTime;
+			this.timeBudget = timeBudget;
+		}
+
+		@Override
+		protected Candidates compute() {
+			if (to - from == 1) {
+				Candidates candidates = new Candidates(beamWidth);
+				if (System.nanoTime() - startTime < timeBudget) {
+					expand(from, depth, candidates, getWorker());
+				} else {
+					candidates.timedOut = true;
+				}
+				return candidates;
+			}
+
+			int middle = (from + to) >>> 1;
+			ExpandTask left = new ExpandTask(from, middle, depth, startTime, timeBudget);
+			left.fork();
+
+			Candidates candidates = new ExpandTask(middle, to, depth, startTime, timeBudget).compute();
+			candidates.addAll(left.join());
+			return candidates;
+		}
+	}
+
+	// A stack in the beam, and how it was reached
+	private static class Node {
+		public final BlockGrid field;
+		public long hash;
+		public TetrominoNames held;
+
+		// Index of the next piece to place in the search state
+		public int next;
+		public int lines;
+		public float score;
+
+		// Placement of the active tetromino on the way to this stack, and whether it was held first
+		public int firstPlacement;
+		public boolean firstHold;
+
+		public Node(int width, int height) {
+			field = new BlockGrid(width, height);
+		}
+	}
+
+	// The best scoring children found by a task, kept as flat arrays and only turned into stacks if they make the beam
+	private static class Candidates {
+		public final float[] scores;
+		public final long[] keys;
+		public final int[] parents;
+		public final int[] placements;
+		public final long[] hashes;
+		public final byte[] pieces;
+		public final byte[] helds;
+		public final int[] nexts;
+		public final boolean[] holds;
+
+		public int count = 0;
+		public long nodes = 0;
+		public long transpositions = 0;
+		public boolean timedOut = false;
+
+		// Index of the lowest score, once every slot is used
+		private int worst;
+
+		public Candidates(int capacity) {
+			scores = new float[capacity];
+			keys = new long[capacity];
+			parents = new int[capacity];
+			placements = new int[capacity];
+			hashes = new long[capacity];
+			pieces = new byte[capacity];
+			helds = new byte[capacity];
+			nexts = new int[capacity];
+			holds = new boolean[capacity];
+		}
+
+		public void offer(float score, long key, int parent, int placement, long hash, TetrominoNames piece, TetrominoNames held, int next, boolean hold) {
+			offer(score, key, parent, placement, hash, (byte) piece.ordinal(), held != null ? (byte) held.ordinal() : -1, next, hold);
+		}
+
+		public void addAll(Candidates other) {
+			for (int i = 0; i < other.count; ++i) {
+				offer(other.scores[i], other.keys[i], other.parents[i], other.placements[i], other.hashes[i], other.pieces[i], other.helds[i], other.nexts[i], other.holds[i]);
+			}
+			nodes += other.nodes;
+			transpositions += other.transpositions;
+			timedOut |= other.timedOut;
+		}
+
+		private void offer(float score, long key, int parent, int placement, long hash, byte piece, byte held, int next, boolean hold) {
+			if (count == scores.length && score <= scores[worst]) {
+				return;
+			}
+
+			// A child with the same key as one already here takes its place only if it scores better
+			int i = -1;
+			for (int j = 0; j < count; ++j) {
+				if (keys[j] == key) {
+					if (score <= scores[j]) {
+						return;
+					}
+					i = j;
+					break;
+				}
+			}
+
+			if (i < 0) {
+				i = count < scores.length ? count++ : worst;
+			}
+
+			scores[i] = score;
+			keys[i] = key;
+			parents[i] = parent;
+			placements[i] = placement;
+			hashes[i] = hash;
+			pieces[i] = piece;
+			helds[i] = held;
+			nexts[i] = next;
+			holds[i] = hold;
+
+			if (count == scores.length) {
+				worst = 0;
+				for (int j = 1; j < count; ++j) {
+					if (scores[j] < scores[worst]) {
+						worst = j;
+					}
+				}
+			}
+		}
+	}
+
+	// Buffers one thread searches with
+	private static class Worker {
+		public final PlacementSearch search;
+		public final BlockGrid field;
+		public final PlacementHeuristic heuristic;
+
+		public Worker(int width, int height, PlacementHeuristic heuristic) {
+			search = new PlacementSearch(width, height);
+			field = new BlockGrid(width, height);
+			this.heuristic = heuristic;
+		}
+	}
+
+	// Plays one seeded game with a beam search bot, and reports how fast the search ran
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: BeamPlanner <seed> <pieces> [beam width] [time budget ms] [threads]");
+			System.exit(1);
+		}
+
+		long seed = Long.parseLong(args[0]);
+		int pieces = Integer.parseInt(args[1]);
+		int beamWidth = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+		long timeBudget = args.length > 3 ? Long.parseLong(args[3]) * 1000000L : 0;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		BeamPlanner planner = new BeamPlanner(new StackHeuristic.Factory(), beamWidth, timeBudget, pool);
+		TetrisBot bot = new TetrisBot(planner);
+
+		MessageSystem messageSystem = new MessageSystem();
+		TetrisBoard board = new TetrisBoard(seed, 1, messageSystem);
+
+		long startTime = System.nanoTime();
+		bot.reset(seed);
+		while (!board.isLoss() && board.getPiecesLocked() < pieces) {
+			bot.act(board, messageSystem);
+			board.tick();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		pool.shutdown();
+
+		System.out.printf("Locked %d pieces and cleared %d lines for %d points in %.2f s%n",
+				board.getPiecesLocked(), board.getTotalLines(), board.getScore(), seconds);
+		System.out.printf("Evaluated %d nodes on %d threads (%.0f nodes/s), %d scored from the transposition table%n",
+				planner.getTotalNodes(), threads, planner.getNodesPerSecond(), planner.getTotalTranspositions());
+	}
+}
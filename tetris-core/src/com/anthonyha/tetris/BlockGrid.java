@@ -0,0 +1,173 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Contains a collection of blocks in an x and y plane.
+//Each row is stored as an int bitmask (bit x set means (x,y) is filled), so grids can be at most 32 blocks wide.
+public class BlockGrid {
+
+	private static final TetrominoNames[] tetrominoNames = TetrominoNames.values();
+
+	private int width, height;
+	private int fullRow;
+
+	// Occupancy mask of each row and the tetromino name ordinal of each block (indexed y * width + x)
+	private int[] rows;
+	private byte[] names;
+
+	// Initialize empty BlockGrid
+	public BlockGrid(int width, int height) {
+		this(width, height, TetrominoNames.GHOST);
+	}
+
+	public BlockGrid(int width, int height, TetrominoNames name) {
+		this.width = width;
+		this.height = height;
+
+		fullRow = width >= Integer.SIZE ? -1 : (1 << width) - 1;
+		rows = new int[height];
+		names = new byte[width * height];
+
+		setName(name);
+	}
+
+	// Getters for dimension
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	// Retrieve block value at coordinates (x,y)
+	public boolean getValue(int x, int y) {
+		// Check for boundaries
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+
+		return (rows[y] & (1 << x)) != 0;
+	}
+
+	// Retrieve the tetromino name of the block at coordinates (x,y)
+	public TetrominoNames getName(int x, int y) {
+		// Check for boundaries
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return TetrominoNames.GHOST;
+		}
+
+		return tetrominoNames[names[y * width + x]];
+	}
+
+	// Retrieve the occupancy mask of row y
+	public int getRow(int y) {
+		if (y < 0 || y >= height) {
+			return 0;
+		}
+
+		return rows[y];
+	}
+
+	// Check if every block in row y is filled
+	public boolean isRowFull(int y) {
+		return getRow(y) == fullRow;
+	}
+
+	// Set block value at coordinates (x,y)
+	public boolean setValue(int x, int y, boolean value) {
+		if (x >= 0 && y >= 0 && x < width && y < height) {
+			if (value) {
+				rows[y] |= 1 << x;
+			} else {
+				rows[y] &= ~(1 << x);
+			}
+			return true;
+		}
+
+		return false;
+	}
+
+	// Set block value at coordinates (x,y) and also the tetromino name
+	public boolean setValue(int x, int y, boolean value, TetrominoNames name) {
+		if (setValue(x, y, value)) {
+			names[y * width + x] = (byte) name.ordinal();
+			return true;
+		}
+
+		return false;
+	}
+
+	// Copy every block of another grid with the same dimensions into this one
+	public void set(BlockGrid grid) {
+		System.arraycopy(grid.rows, 0, rows, 0, height);
+		System.arraycopy(grid.names, 0, names, 0, names.length);
+	}
+
+	// Set the occupancy mask of row y, leaving the names of its blocks as they are
+	public void setRow(int y, int mask) {
+		if (y >= 0 && y < height) {
+			rows[y] = mask & fullRow;
+		}
+	}
+
+	// Copy every block of row "from" onto row "to"
+	public void copyRow(int from, int to) {
+		rows[to] = rows[from];
+		System.arraycopy(names, from * width, names, to * width, width);
+	}
+
+	// Pack the name of every block into words from offset on, eight 4 bit names to an int. Returns the offset after the last word.
+	public int writeNames(int[] words, int offset) {
+		for (int i = 0; i < names.length; i += 8) {
+			int word = 0;
+			for (int j = i; j < Math.min(i + 8, names.length); ++j) {
+				word |= names[j] << ((j - i) * 4);
+			}
+			words[offset++] = word;
+		}
+		return offset;
+	}
+
+	// Unpack names written by writeNames. Returns the offset after the last word.
+	public int readNames(int[] words, int offset) {
+		for (int i = 0; i < names.length; i += 8) {
+			int word = words[offset++];
+			for (int j = i; j < Math.min(i + 8, names.length); ++j) {
+				names[j] = (byte) ((word >>> ((j - i) * 4)) & 0xF);
+			}
+		}
+		return offset;
+	}
+
+	// Set name of all the blocks
+	public void setName(TetrominoNames name) {
+		byte ordinal = (byte) name.ordinal();
+		for (int i = 0; i < names.length; ++i) {
+			names[i] = ordinal;
+		}
+	}
+
+	// Tests for intersection with anther block grid in relation to itself
+	public boolean intersects(BlockGrid otherBlock, int relX, int relY) {
+		if (relX >= Integer.SIZE || relX <= -Integer.SIZE) {
+			return false;
+		}
+
+		// Only rows that both grids share can intersect
+		int yStart = Math.max(0, relY);
+		int yEnd = Math.min(height, otherBlock.height + relY);
+
+		for (int y = yStart; y < yEnd; ++y) {
+			int otherRow = otherBlock.rows[y - relY];
+			otherRow = relX >= 0 ? otherRow << relX : otherRow >>> -relX;
+
+			if ((rows[y] & otherRow) != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
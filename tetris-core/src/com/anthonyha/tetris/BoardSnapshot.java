@@ -0,0 +1,73 @@
+package com.anthonyha.tetris;
+
+//Everything a TetrisBoard's game depends on, saved by TetrisBoard.saveState and put back by restoreState.
+//A snapshot is a flat array of words and a copy of the grid, both allocated when the snapshot is created,
+//so saving and restoring are a handful of array copies that never allocate. That makes them cheap enough to take every tick,
+//for rolling a board back, branching a search from it, or undoing moves.
+//Snapshots can also be flattened into ints with write and brought back with read, which is how replays store keyframes.
+public class BoardSnapshot {
+
+	// Counters, timers, tetrominoes and the randomizer, in the order TetrisBoard saves them
+	final int[] words = new int[TetrisBoard.STATE_SIZE];
+	int wordCount;
+
+	final BlockGrid grid;
+
+	// Creates an empty snapshot sized for boards like the given one
+	public BoardSnapshot(TetrisBoard board) {
+		grid = new BlockGrid(board.gameGrid.getWidth(), board.gameGrid.getHeight());
+	}
+
+	// Makes this snapshot a copy of another of the same size
+	public void set(BoardSnapshot other) {
+		System.arraycopy(other.words, 0, words, 0, other.wordCount);
+		wordCount = other.wordCount;
+		grid.set(other.grid);
+	}
+
+	// Retrieve the tick the snapshot was saved on
+	public int getTick() {
+		return words[0];
+	}
+
+	// Retrieve the most ints write can take
+	public int getMaxWrittenSize() {
+		return getWrittenSize(words.length);
+	}
+
+	// Flatten the snapshot into ints: the number of words, the words, each row of the grid, then the grid's packed names.
+	// Returns the number of ints written.
+	public int write(int[] out) {
+		int i = 0;
+		out[i++] = wordCount;
+		System.arraycopy(words, 0, out, i, wordCount);
+		i += wordCount;
+
+		for (int y = 0; y < grid.getHeight(); ++y) {
+			out[i++] = grid.getRow(y);
+		}
+		return grid.writeNames(out, i);
+	}
+
+	// Read a snapshot flattened by write. Throws IllegalArgumentException if it doesn't fit this snapshot.
+	public void read(int[] in, int length) {
+		int count = length > 0 ? in[0] : -1;
+		if (count < 0 || count > words.length || length != getWrittenSize(count)) {
+			throw new IllegalArgumentException("Snapshot doesn't fit this board");
+		}
+
+		int i = 1;
+		System.arraycopy(in, i, words, 0, count);
+		wordCount = count;
+		i += count;
+
+		for (int y = 0; y < grid.getHeight(); ++y) {
+			grid.setRow(y, in[i++]);
+		}
+		grid.readNames(in, i);
+	}
+
+	private int getWrittenSize(int count) {
+		return 1 + count + grid.getHeight() + (grid.getWidth() * grid.getHeight() + 7) / 8;
+	}
+}
@@ -0,0 +1,157 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.anthonyha.tetris.MessageSystem.Extra;
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//A fixed ring of game events that one thread publishes to and any number of threads read from, without locks.
+//Every event is numbered in the order it was published, and each Reader keeps the number of the next event it will read,
+//so readers never hold the publisher or each other up. The publisher never waits either: a reader that falls more than
+//a whole ring behind finds its events overwritten, skips to the oldest one still there and counts the ones it lost.
+//
+//Each slot is two longs: a stamp of (sequence << 16 | kind of extra << 8 | message ordinal), and the tick << 32 | extra.
+//The publisher clears the stamp before rewriting a slot, so a reader that sees the same stamp before and after reading the data
+//knows the data wasn't changed under it.
+//
+//Nothing in the game publishes to or reads from a ring yet. TetrisSoundSystem and the other listeners are still called on the
+//game's thread, between ticks, through MessageSystem's batches, and the tetris module can't depend on this class because GWT
+//builds it without. EventRingBufferCheck and EventRingBufferStressCheck, in tetris-core/test, check what readers see.
+public class EventRingBuffer {
+
+	// What an event carries besides its message
+	public static final int NO_EXTRA = 0, INT_EXTRA = 1, BOOLEAN_EXTRA = 2, ENUM_EXTRA = 3;
+
+	private static final Message[] messages = Message.values();
+	private static final Extra[] extras = Extra.values();
+
+	private static final long EMPTY = -1;
+
+	private final AtomicLongArray slots;
+	private final int mask;
+
+	// Number of events published, which is the sequence of the next one
+	private final AtomicLong published = new AtomicLong();
+
+	// Creates a ring of 2^sizeBits events
+	public EventRingBuffer(int sizeBits) {
+		slots = new AtomicLongArray(2 << sizeBits);
+		mask = (1 << sizeBits) - 1;
+
+		for (int i = 0; i < slots.length(); i += 2) {
+			slots.set(i, EMPTY);
+		}
+	}
+
+	// Adds an event to the ring. Must only ever be called from one thread.
+	public void publish(Message message, int kind, int extra, int tick) {
+		long sequence = published.get();
+		int slot = (int) (sequence & mask) << 1;
+
+		slots.lazySet(slot, EMPTY);
+		slots.lazySet(slot + 1, (long) tick << 32 | extra & 0xFFFFFFFFL);
+		slots.lazySet(slot, sequence << 16 | kind << 8 | message.ordinal());
+		published.lazySet(sequence + 1);
+	}
+
+	// Retrieve the number of events published so far
+	public long getPublished() {
+		return published.get();
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	// Creates a reader that starts at the next event to be published
+	public Reader newReader() {
+		return new Reader(published.get());
+	}
+
+	//Reads the ring's events in order from one thread. Each thread reading the ring needs its own reader.
+	public class Reader {
+
+		private long next;
+		private long lost;
+
+		private Message message;
+		private int kind;
+		private int extra;
+		private int tick;
+
+		private Reader(long next) {
+			this.next = next;
+		}
+
+		// Moves on to the next event, and returns true, or returns false if every event published so far has been read
+		public boolean next() {
+			while (true) {
+				long available = published.get();
+				if (next >= available) {
+					return false;
+				}
+
+				// Events more than a ring behind have been overwritten
+				if (available - next > getCapacity()) {
+					long oldest = available - getCapacity();
+					lost += oldest - next;
+					next = oldest;
+				}
+
+				int slot = (int) (next & mask) << 1;
+				long stamp = slots.get(slot);
+				long data = slots.get(slot + 1);
+				if (stamp != slots.get(slot) || stamp >>> 16 != next) {
+					// The publisher overwrote the event while it was being read, so it is lost
+					lost += 1;
+					next += 1;
+					continue;
+				}
+
+				message = messages[(int) stamp & 0xFF];
+				kind = (int) (stamp >>> 8) & 0xFF;
+				extra = (int) data;
+				tick = (int) (data >>> 32);
+				++next;
+				return true;
+			}
+		}
+
+		// Retrieve the sequence of the event after the one last read
+		public long getNext() {
+			return next;
+		}
+
+		// Retrieve the number of events that were overwritten before this reader got to them
+		public long getLost() {
+			return lost;
+		}
+
+		public Message getMessage() {
+			return message;
+		}
+
+		// Retrieve what the event carries besides its message: NO_EXTRA, INT_EXTRA, BOOLEAN_EXTRA or ENUM_EXTRA
+		public int getKind() {
+			return kind;
+		}
+
+		public int getInt() {
+			return extra;
+		}
+
+		public boolean getBoolean() {
+			return extra != 0;
+		}
+
+		public Extra getExtra() {
+			return extras[extra];
+		}
+
+		// Retrieve the board tick the event was posted on
+		public int getTick() {
+			return tick;
+		}
+	}
+}
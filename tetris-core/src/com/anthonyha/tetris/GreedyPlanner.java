@@ -0,0 +1,67 @@
+package com.anthonyha.tetris;
+
+//Plans by trying every placement the active tetromino, or the one holding would swap it for, can reach,
+//and picking the one the heuristic scores best. Only the next placement is looked at.
+public class GreedyPlanner implements PlacementPlanner {
+
+	private final PlacementHeuristic heuristic;
+
+	private PlacementSearch search;
+	private BlockGrid placedField;
+	private int target = -1;
+
+	public GreedyPlanner(PlacementHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public boolean plan(TetrisBoard board) {
+		BlockGrid field = board.gameGrid;
+		Tetromino tetromino = board.activeTetromino;
+
+		if (search == null) {
+			search = new PlacementSearch(field.getWidth(), field.getHeight());
+			placedField = new BlockGrid(field.getWidth(), field.getHeight());
+		}
+		target = -1;
+
+		if (board.canHold()) {
+			Tetromino alternative = board.heldTetromino != null ? board.heldTetromino : board.tetrominoQueue.get(0);
+			float alternativeScore = findBestPlacement(field, alternative, board.getSpawnX(alternative), board.getSpawnY(alternative));
+			float score = findBestPlacement(field, tetromino, board.tetrominoPos.x, board.tetrominoPos.y);
+
+			if (alternativeScore > score) {
+				target = -1;
+				return true;
+			}
+		} else {
+			findBestPlacement(field, tetromino, board.tetrominoPos.x, board.tetrominoPos.y);
+		}
+
+		return false;
+	}
+
+	@Override
+	public int getTarget() {
+		return target;
+	}
+
+	// Sets the target to the best placement of tetromino from (x,y) and returns its score
+	private float findBestPlacement(BlockGrid field, Tetromino tetromino, int x, int y) {
+		int placements = search.search(field, tetromino, x, y, tetromino.getRotationState());
+		float bestScore = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < placements; ++i) {
+			int placement = search.getPlacement(i);
+			int lines = search.place(field, tetromino, placement, placedField);
+			float score = heuristic.evaluate(placedField, lines);
+
+			if (score > bestScore) {
+				bestScore = score;
+				target = placement;
+			}
+		}
+
+		return bestScore;
+	}
+}
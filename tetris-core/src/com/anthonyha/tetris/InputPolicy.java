@@ -0,0 +1,16 @@
+package com.anthonyha.tetris;
+
+//Plays a TetrisBoard without a player, by posting the same command messages that TetrisInputSystem posts
+public interface InputPolicy {
+
+	// Called before every game, with the seed the game's board was created with
+	public void reset(long seed);
+
+	// Called once before every tick of the board
+	public void act(TetrisBoard board, MessageSystem messageSystem);
+
+	// Creates a separate policy for each thread that plays games
+	public interface Factory {
+		public InputPolicy create();
+	}
+}
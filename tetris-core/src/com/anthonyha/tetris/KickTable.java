@@ -0,0 +1,60 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+
+//Wall kick translations of a tetromino family, derived once from its SRS offset data.
+//The kicks of a rotation from one state to another are stored next to each other as x,y pairs, in the order they are tested.
+public class KickTable {
+
+	private static final int STATES = RotationState.values().length;
+
+	private final int tests;
+	private final int[] kicks;
+
+	public KickTable(Vector2[][] offsetData) {
+		tests = offsetData[0].length;
+		kicks = new int[STATES * STATES * tests * 2];
+
+		for (int from = 0; from < STATES; ++from) {
+			for (int to = 0; to < STATES; ++to) {
+				for (int test = 0; test < tests; ++test) {
+					// Kick translations are the offset before rotating minus the offset after rotating
+					int i = index(from, to) + test * 2;
+					kicks[i] = offsetData[from][test].x - offsetData[to][test].x;
+					kicks[i + 1] = offsetData[from][test].y - offsetData[to][test].y;
+				}
+			}
+		}
+	}
+
+	// Number of kicks that are tested for every rotation
+	public int getTests() {
+		return tests;
+	}
+
+	public int getKickX(RotationState from, RotationState to, int test) {
+		return kicks[index(from.ordinal(), to.ordinal()) + test * 2];
+	}
+
+	public int getKickY(RotationState from, RotationState to, int test) {
+		return kicks[index(from.ordinal(), to.ordinal()) + test * 2 + 1];
+	}
+
+	// Finds the first kick that lets rotatedGrid fit into field when placed at (x,y).
+	// Returns the index of that kick, or -1 if the rotation is blocked.
+	public int findKick(BlockGrid field, BlockGrid rotatedGrid, int x, int y, RotationState from, RotationState to) {
+		int i = index(from.ordinal(), to.ordinal());
+
+		for (int test = 0; test < tests; ++test, i += 2) {
+			if (!field.intersects(rotatedGrid, x + kicks[i], y + kicks[i + 1])) {
+				return test;
+			}
+		}
+
+		return -1;
+	}
+
+	private int index(int from, int to) {
+		return (from * STATES + to) * tests * 2;
+	}
+}
@@ -9,5 +9,9 @@ public interface MessageListener {
 	public void recieveMessage(MessageSystem.Message message, boolean extra);
 	public void recieveMessage(MessageSystem.Message message, Extra extra);
 	
+	// Called around each batch of queued messages, for listeners added with MessageSystem.addBatchListener
+	public void beginBatch();
+	public void endBatch();
+	
 	
 }
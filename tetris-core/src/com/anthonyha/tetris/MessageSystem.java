@@ -0,0 +1,234 @@
+package com.anthonyha.tetris;
+
+public class MessageSystem {
+	
+	public enum Message {
+		SCORE_CHANGE, ROWS_SCORED, ROW_CLEARED, HARD_DROPPED, SOFT_DROPPED, SHIFTED, LOCKED_IN, LEVEL_UP, // Game events
+		LEFT, RIGHT, ROTATE_LEFT, ROTATE_RIGHT, SOFT_DROP, HARD_DROP, HOLD, RESTART_GAME, PAUSE, UNPAUSE, UNDO,// Command changes
+		GAME_PAUSED, GAME_RESUMED, GAME_OVER // Game state updates
+	}
+	
+	public enum Extra {
+		SINGLE_SCORED, DOUBLE_SCORED, TRIPLE_SCORED, TETRIS_SCORED, BACKTOBACK_SCORED, TSPIN_SCORED
+	}
+	
+	private static final Message[] messages = Message.values();
+	private static final Extra[] extras = Extra.values();
+	private static final MessageListener[] noListeners = new MessageListener[0];
+	
+	// What a queued message carries besides itself
+	private static final int NO_EXTRA = 0, INT_EXTRA = 1, BOOLEAN_EXTRA = 2, ENUM_EXTRA = 3;
+	
+	// Number of messages the queue holds before it is delivered early
+	private static final int QUEUE_SIZE = 256;
+	
+	// Listeners of each message, indexed by ordinal. Adding or removing a listener replaces the message's array
+	// instead of changing it, so a post keeps calling the listeners there were when it started, even if one of them removes itself.
+	private MessageListener[][] listeners;
+	private MessageListener[] batchListeners = noListeners;
+	
+	// Messages held back until deliverQueued, as ordinal | kind of extra << 8, alongside their extras
+	private final boolean[] queued = new boolean[messages.length];
+	private final int[] queue = new int[QUEUE_SIZE];
+	private final int[] queueExtras = new int[QUEUE_SIZE];
+	private int queueHead, queueCount;
+	private boolean delivering;
+	
+	// Posts of each message, indexed by ordinal, or null when they aren't counted
+	private Metrics.Counter[] postCounters;
+	
+	public MessageSystem() {
+		listeners = new MessageListener[messages.length][];
+		for (int i = 0; i < listeners.length; ++i) {
+			listeners[i] = noListeners;
+		}
+	}
+	
+	public void add(MessageListener listener, Message m) {
+		listeners[m.ordinal()] = added(listeners[m.ordinal()], listener);
+	}
+	
+	public void remove(MessageListener listener, Message m) {
+		listeners[m.ordinal()] = removed(listeners[m.ordinal()], listener);
+	}
+	
+	// Listeners told when a batch of queued messages starts and ends, so they can handle the batch as a whole
+	public void addBatchListener(MessageListener listener) {
+		batchListeners = added(batchListeners, listener);
+	}
+	
+	public void removeBatchListener(MessageListener listener) {
+		batchListeners = removed(batchListeners, listener);
+	}
+	
+	// Count the posts of every message in metrics, as "messages posted: " and the message's name
+	public void setMetrics(Metrics metrics) {
+		postCounters = new Metrics.Counter[messages.length];
+		for (int i = 0; i < messages.length; ++i) {
+			postCounters[i] = metrics.counter("messages posted: " + messages[i]);
+		}
+	}
+	
+	// Hold posts of a message back until deliverQueued instead of calling its listeners straight away.
+	// Only messages nothing needs an answer to at once should be queued, like the ones presentation reacts to.
+	public void setQueued(Message m, boolean queued) {
+		this.queued[m.ordinal()] = queued;
+	}
+	
+	public boolean isQueued(Message m) {
+		return queued[m.ordinal()];
+	}
+	
+	// Calls the listeners of every queued message in the order they were posted, between beginBatch and endBatch.
+	// Messages posted while the batch is delivered are part of it.
+	public void deliverQueued() {
+		if (queueCount == 0 || delivering) {
+			return;
+		}
+		
+		delivering = true;
+		MessageListener[] batch = batchListeners;
+		try {
+			for (int i = 0; i < batch.length; ++i) {
+				batch[i].beginBatch();
+			}
+			
+			while (queueCount > 0) {
+				int entry = queue[queueHead];
+				int extra = queueExtras[queueHead];
+				queueHead = (queueHead + 1) & (QUEUE_SIZE - 1);
+				--queueCount;
+				
+				dispatch(messages[entry & 0xFF], entry >>> 8, extra);
+			}
+		} finally {
+			// A listener that throws mustn't leave the queue undeliverable, or the other listeners mid-batch
+			try {
+				for (int i = 0; i < batch.length; ++i) {
+					batch[i].endBatch();
+				}
+			} finally {
+				delivering = false;
+			}
+		}
+	}
+	
+	public void postMessage(Message m) {
+		if (postCounters != null) {
+			postCounters[m.ordinal()].increment();
+		}
+		
+		if (queued[m.ordinal()]) {
+			enqueue(m, NO_EXTRA, 0);
+			return;
+		}
+		
+		MessageListener[] current = listeners[m.ordinal()];
+		for (int i = 0; i < current.length; ++i) {
+			current[i].recieveMessage(m);
+		}
+	}
+	
+	public void postMessage(Message m, int extra) {
+		if (postCounters != null) {
+			postCounters[m.ordinal()].increment();
+		}
+		
+		if (queued[m.ordinal()]) {
+			enqueue(m, INT_EXTRA, extra);
+			return;
+		}
+		
+		MessageListener[] current = listeners[m.ordinal()];
+		for (int i = 0; i < current.length; ++i) {
+			current[i].recieveMessage(m, extra);
+		}
+	}
+	
+	public void postMessage(Message m, boolean extra) {
+		if (postCounters != null) {
+			postCounters[m.ordinal()].increment();
+		}
+		
+		if (queued[m.ordinal()]) {
+			enqueue(m, BOOLEAN_EXTRA, extra ? 1 : 0);
+			return;
+		}
+		
+		MessageListener[] current = listeners[m.ordinal()];
+		for (int i = 0; i < current.length; ++i) {
+			current[i].recieveMessage(m, extra);
+		}
+	}
+	
+	public void postMessage(Message m, Extra extra) {
+		if (postCounters != null) {
+			postCounters[m.ordinal()].increment();
+		}
+		
+		if (queued[m.ordinal()]) {
+			enqueue(m, ENUM_EXTRA, extra.ordinal());
+			return;
+		}
+		
+		MessageListener[] current = listeners[m.ordinal()];
+		for (int i = 0; i < current.length; ++i) {
+			current[i].recieveMessage(m, extra);
+		}
+	}
+	
+	private void enqueue(Message m, int kind, int extra) {
+		if (queueCount == QUEUE_SIZE) {
+			// A full queue is delivered early. While it is being delivered, the message goes straight to its listeners instead.
+			if (delivering) {
+				dispatch(m, kind, extra);
+				return;
+			}
+			deliverQueued();
+		}
+		
+		int tail = (queueHead + queueCount) & (QUEUE_SIZE - 1);
+		queue[tail] = m.ordinal() | kind << 8;
+		queueExtras[tail] = extra;
+		++queueCount;
+	}
+	
+	private void dispatch(Message m, int kind, int extra) {
+		MessageListener[] current = listeners[m.ordinal()];
+		for (int i = 0; i < current.length; ++i) {
+			switch (kind) {
+			case NO_EXTRA:
+				current[i].recieveMessage(m);
+				break;
+			case INT_EXTRA:
+				current[i].recieveMessage(m, extra);
+				break;
+			case BOOLEAN_EXTRA:
+				current[i].recieveMessage(m, extra != 0);
+				break;
+			default:
+				current[i].recieveMessage(m, extras[extra]);
+				break;
+			}
+		}
+	}
+	
+	private static MessageListener[] added(MessageListener[] old, MessageListener listener) {
+		MessageListener[] added = new MessageListener[old.length + 1];
+		System.arraycopy(old, 0, added, 0, old.length);
+		added[old.length] = listener;
+		return added;
+	}
+	
+	private static MessageListener[] removed(MessageListener[] old, MessageListener listener) {
+		for (int i = 0; i < old.length; ++i) {
+			if (old[i] == listener) {
+				MessageListener[] removed = new MessageListener[old.length - 1];
+				System.arraycopy(old, 0, removed, 0, i);
+				System.arraycopy(old, i + 1, removed, i, removed.length - i);
+				return removed;
+			}
+		}
+		return old;
+	}
+}
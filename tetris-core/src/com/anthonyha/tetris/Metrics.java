@@ -0,0 +1,218 @@
+package com.anthonyha.tetris;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//A registry of named counters, histograms and timers, for seeing where frames and games spend their time.
+//Metrics are looked up by name once, when whatever measures them is set up, and kept. After that, measuring only adds to
+//a few longs in the metric itself, so it costs next to nothing and never allocates.
+//Everything registered can be read back in code, or written out as text with appendTo.
+public class Metrics {
+
+	private final List<Metric> metrics = new ArrayList<Metric>();
+
+	// Retrieve the counter of the given name, registering it the first time
+	public Counter counter(String name) {
+		Metric metric = find(name);
+		if (metric == null) {
+			metric = register(new Counter(name));
+		}
+		return (Counter) metric;
+	}
+
+	// Retrieve the histogram of the given name, registering it the first time
+	public Histogram histogram(String name) {
+		Metric metric = find(name);
+		if (metric == null) {
+			metric = register(new Histogram(name));
+		}
+		return (Histogram) metric;
+	}
+
+	// Retrieve the timer of the given name, registering it the first time
+	public Timer timer(String name) {
+		Metric metric = find(name);
+		if (metric == null) {
+			metric = register(new Timer(name));
+		}
+		return (Timer) metric;
+	}
+
+	// Retrieve the metric of the given name, or null if there is none
+	public Metric find(String name) {
+		for (int i = 0; i < metrics.size(); ++i) {
+			if (metrics.get(i).name.equals(name)) {
+				return metrics.get(i);
+			}
+		}
+		return null;
+	}
+
+	public int size() {
+		return metrics.size();
+	}
+
+	public Metric get(int i) {
+		return metrics.get(i);
+	}
+
+	// Zero every metric, keeping them registered
+	public void reset() {
+		for (int i = 0; i < metrics.size(); ++i) {
+			metrics.get(i).reset();
+		}
+	}
+
+	// Write every metric as a line of text, in the order they were registered
+	public void appendTo(StringBuilder out) {
+		for (int i = 0; i < metrics.size(); ++i) {
+			metrics.get(i).appendTo(out);
+			out.append('\n');
+		}
+	}
+
+	private Metric register(Metric metric) {
+		metrics.add(metric);
+		return metric;
+	}
+
+	public static abstract class Metric {
+		public final String name;
+
+		protected Metric(String name) {
+			this.name = name;
+		}
+
+		public abstract void reset();
+		public abstract void appendTo(StringBuilder out);
+	}
+
+	//Counts how many times something happened
+	public static class Counter extends Metric {
+		private long count;
+
+		public Counter(String name) {
+			super(name);
+		}
+
+		public void increment() {
+			++count;
+		}
+
+		public void add(long amount) {
+			count += amount;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public void reset() {
+			count = 0;
+		}
+
+		@Override
+		public void appendTo(StringBuilder out) {
+			out.append(name).append(": ").append(count);
+		}
+	}
+
+	//Records values into 64 buckets, one for each power of two, besides their count, sum, smallest and largest
+	public static class Histogram extends Metric {
+		private final long[] buckets = new long[64];
+		private long count;
+		private long sum;
+		private long min = Long.MAX_VALUE;
+		private long max = Long.MIN_VALUE;
+
+		public Histogram(String name) {
+			super(name);
+		}
+
+		// Record a value. Values below 1 share the lowest bucket.
+		public void record(long value) {
+			++buckets[value > 0 ? 64 - Long.numberOfLeadingZeros(value) - 1 : 0];
+			++count;
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSum() {
+			return sum;
+		}
+
+		public long getMin() {
+			return count > 0 ? min : 0;
+		}
+
+		public long getMax() {
+			return count > 0 ? max : 0;
+		}
+
+		public long getMean() {
+			return count > 0 ? sum / count : 0;
+		}
+
+		// Retrieve an upper bound for the value the given fraction of values are at or below, to within a power of two
+		public long getPercentile(double fraction) {
+			long rank = (long) Math.ceil(fraction * count);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; ++i) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(i < 62 ? (2L << i) - 1 : Long.MAX_VALUE, getMax());
+				}
+			}
+			return getMax();
+		}
+
+		@Override
+		public void reset() {
+			for (int i = 0; i < buckets.length; ++i) {
+				buckets[i] = 0;
+			}
+			count = 0;
+			sum = 0;
+			min = Long.MAX_VALUE;
+			max = Long.MIN_VALUE;
+		}
+
+		@Override
+		public void appendTo(StringBuilder out) {
+			out.append(name).append(": count ").append(count).append(", mean ").append(getMean()).append(", min ").append(getMin())
+					.append(", p50 ").append(getPercentile(0.5)).append(", p99 ").append(getPercentile(0.99)).append(", max ").append(getMax());
+		}
+	}
+
+	//A histogram of durations in nanoseconds, measured between start and stop
+	public static class Timer extends Histogram {
+		private long startTime;
+
+		public Timer(String name) {
+			super(name);
+		}
+
+		public void start() {
+			startTime = System.nanoTime();
+		}
+
+		// Records the time since start, and returns it
+		public long stop() {
+			long elapsed = System.nanoTime() - startTime;
+			record(elapsed);
+			return elapsed;
+		}
+
+		@Override
+		public void appendTo(StringBuilder out) {
+			super.appendTo(out);
+			out.append(" (ns)");
+		}
+	}
+}
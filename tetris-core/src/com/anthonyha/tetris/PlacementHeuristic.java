@@ -0,0 +1,13 @@
+package com.anthonyha.tetris;
+
+//Scores how good a field is after a tetromino has been placed, for bots choosing between placements
+public interface PlacementHeuristic {
+
+	// Scores field after a piece was locked into it and linesCleared lines were removed. Higher scores are better.
+	public float evaluate(BlockGrid field, int linesCleared);
+
+	// Creates a separate heuristic for each thread that evaluates placements
+	public interface Factory {
+		public PlacementHeuristic create();
+	}
+}
@@ -0,0 +1,12 @@
+package com.anthonyha.tetris;
+
+//Chooses where TetrisBot should place the active tetromino of a board
+public interface PlacementPlanner {
+
+	// Plans a placement for the board's active tetromino. Returns true if holding it would lead to a better placement,
+	// in which case the planner is asked again once the held tetromino has been swapped out.
+	public boolean plan(TetrisBoard board);
+
+	// Retrieve the planned placement as a PlacementSearch state for the board's grid, or -1 if there is none
+	public int getTarget();
+}
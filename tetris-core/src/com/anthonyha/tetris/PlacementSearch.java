@@ -0,0 +1,214 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+
+//Finds every placement a tetromino can reach on a field, by breadth-first search over its position and rotation state.
+//Pieces move with the same collision checks and SRS kicks as TetrisBoard, so tucks and spins are found as well as drops.
+//The field is expected to be laid out like TetrisBoard's grid: walls in the outer columns, a floor in row 0 and a ceiling in the top row.
+//A search reuses its buffers, so searching allocates nothing, but one search must only be used by one thread.
+public class PlacementSearch {
+
+	public enum Move {
+		LEFT, RIGHT, DOWN, ROTATE_RIGHT, ROTATE_LEFT
+	}
+
+	private static final Move[] moveValues = Move.values();
+	private static final RotationState[] rotationStates = RotationState.values();
+
+	// Tetromino grids have empty borders, so positions may hang this far outside of the field
+	private static final int MARGIN = 4;
+
+	private final int fieldWidth, fieldHeight;
+	private final int xRange, yRange;
+
+	// Per state: the search it was last reached in, and the state and move it was reached from
+	private final int[] visited;
+	private final int[] parents;
+	private final byte[] parentMoves;
+
+	private final int[] queue;
+	private final int[] placements;
+	private int placementCount;
+
+	private int generation = 0;
+	private int start;
+	private long statesSearched = 0;
+
+	public PlacementSearch(int fieldWidth, int fieldHeight) {
+		this.fieldWidth = fieldWidth;
+		this.fieldHeight = fieldHeight;
+
+		xRange = fieldWidth + 2 * MARGIN;
+		yRange = fieldHeight + 2 * MARGIN;
+
+		int states = rotationStates.length * xRange * yRange;
+		visited = new int[states];
+		parents = new int[states];
+		parentMoves = new byte[states];
+		queue = new int[states];
+		placements = new int[states];
+	}
+
+	// Searches every state tetromino can reach from (x,y) in the given rotation state. Returns the number of placements found,
+	// a placement being any reached state that rests on the stack.
+	public int search(BlockGrid field, Tetromino tetromino, int x, int y, RotationState state) {
+		++generation;
+		placementCount = 0;
+
+		int head = 0;
+		int tail = 0;
+
+		start = getState(x, y, state);
+		if (start < 0) {
+			return 0;
+		}
+		visited[start] = generation;
+		queue[tail++] = start;
+
+		while (head < tail) {
+			int current = queue[head++];
+			int currentX = getX(current);
+			int currentY = getY(current);
+			RotationState currentState = getRotationState(current);
+			BlockGrid grid = tetromino.getGrid(currentState);
+
+			if (field.intersects(grid, currentX, currentY - 1)) {
+				placements[placementCount++] = current;
+			} else {
+				tail = visit(currentX, currentY - 1, currentState, current, Move.DOWN, tail);
+			}
+
+			if (!field.intersects(grid, currentX - 1, currentY)) {
+				tail = visit(currentX - 1, currentY, currentState, current, Move.LEFT, tail);
+			}
+
+			if (!field.intersects(grid, currentX + 1, currentY)) {
+				tail = visit(currentX + 1, currentY, currentState, current, Move.RIGHT, tail);
+			}
+
+			tail = rotate(field, tetromino, current, currentState.clockwise(), Move.ROTATE_RIGHT, tail);
+			tail = rotate(field, tetromino, current, currentState.counterClockwise(), Move.ROTATE_LEFT, tail);
+		}
+
+		statesSearched += tail;
+		return placementCount;
+	}
+
+	// Retrieve the state of the i-th placement found by the last search
+	public int getPlacement(int i) {
+		return placements[i];
+	}
+
+	// Number of distinct states a search can reach, which bounds the length of any path
+	public int getStateCount() {
+		return visited.length;
+	}
+
+	// Number of states searched by every search so far
+	public long getStatesSearched() {
+		return statesSearched;
+	}
+
+	// Retrieve the state for a position and rotation, or -1 if it is too far outside of the field to be searched
+	public int getState(int x, int y, RotationState state) {
+		if (x < -MARGIN || y < -MARGIN || x >= fieldWidth + MARGIN || y >= fieldHeight + MARGIN) {
+			return -1;
+		}
+
+		return (state.ordinal() * xRange + x + MARGIN) * yRange + y + MARGIN;
+	}
+
+	public int getX(int state) {
+		return (state / yRange) % xRange - MARGIN;
+	}
+
+	public int getY(int state) {
+		return state % yRange - MARGIN;
+	}
+
+	public RotationState getRotationState(int state) {
+		return rotationStates[state / (xRange * yRange)];
+	}
+
+	// Check if the last search reached the given state
+	public boolean isReached(int state) {
+		return state >= 0 && visited[state] == generation;
+	}
+
+	// Writes the shortest sequence of moves from the start of the last search to a reached state, and the states passed through
+	// along the way (states[0] being the start and states[length] the given state). Returns the number of moves.
+	public int getPath(int state, int[] states, Move[] moves) {
+		int length = 0;
+		for (int current = state; current != start; current = parents[current]) {
+			++length;
+		}
+
+		states[length] = state;
+		for (int i = length - 1; i >= 0; --i) {
+			moves[i] = moveValues[parentMoves[states[i + 1]]];
+			states[i] = parents[states[i + 1]];
+		}
+
+		return length;
+	}
+
+	// Writes field with the tetromino locked in at a state, and full lines cleared, into result. Returns the number of lines cleared.
+	public int place(BlockGrid field, Tetromino tetromino, int state, BlockGrid result) {
+		BlockGrid grid = tetromino.getGrid(getRotationState(state));
+		int x = getX(state);
+		int y = getY(state);
+
+		result.set(field);
+		for (int row = 0; row < grid.getHeight(); ++row) {
+			int mask = grid.getRow(row);
+			mask = x >= 0 ? mask << x : mask >>> -x;
+			result.setRow(y + row, result.getRow(y + row) | mask);
+		}
+
+		// Move the rows that aren't full down over the ones that are, like TetrisBoard does
+		int bottom = Math.max(1, y);
+		int top = Math.min(fieldHeight - 2, y + grid.getHeight() - 1);
+		int lines = 0;
+
+		for (int row = bottom; row < fieldHeight - 1; ++row) {
+			if (row <= top && result.isRowFull(row)) {
+				++lines;
+			} else if (lines > 0) {
+				result.copyRow(row, row - lines);
+			}
+		}
+
+		int walls = 1 | 1 << (fieldWidth - 1);
+		for (int row = fieldHeight - 1 - lines; row < fieldHeight - 1; ++row) {
+			result.setRow(row, walls);
+		}
+
+		return lines;
+	}
+
+	private int rotate(BlockGrid field, Tetromino tetromino, int current, RotationState to, Move move, int tail) {
+		RotationState from = getRotationState(current);
+		int x = getX(current);
+		int y = getY(current);
+
+		int kick = tetromino.kickTable.findKick(field, tetromino.getGrid(to), x, y, from, to);
+		if (kick < 0) {
+			return tail;
+		}
+
+		return visit(x + tetromino.kickTable.getKickX(from, to, kick), y + tetromino.kickTable.getKickY(from, to, kick), to, current, move, tail);
+	}
+
+	private int visit(int x, int y, RotationState rotationState, int parent, Move move, int tail) {
+		int state = getState(x, y, rotationState);
+
+		if (state >= 0 && visited[state] != generation) {
+			visited[state] = generation;
+			parents[state] = parent;
+			parentMoves[state] = (byte) move.ordinal();
+			queue[tail++] = state;
+		}
+
+		return tail;
+	}
+}
@@ -0,0 +1,63 @@
+package com.anthonyha.tetris;
+
+import java.util.Random;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Presses a random command every few ticks, hard dropping often enough that games keep moving
+public class RandomInputPolicy implements InputPolicy {
+
+	private static final int TICKS_PER_ACTION = 50;
+
+	private Random generator = new Random();
+	private int actionTimer;
+
+	@Override
+	public void reset(long seed) {
+		generator.setSeed(seed);
+		actionTimer = 0;
+	}
+
+	@Override
+	public void act(TetrisBoard board, MessageSystem messageSystem) {
+		if (++actionTimer < TICKS_PER_ACTION) {
+			return;
+		}
+		actionTimer = 0;
+
+		switch (generator.nextInt(6)) {
+		case 0:
+			messageSystem.postMessage(Message.LEFT, true);
+			messageSystem.postMessage(Message.LEFT, false);
+			break;
+
+		case 1:
+			messageSystem.postMessage(Message.RIGHT, true);
+			messageSystem.postMessage(Message.RIGHT, false);
+			break;
+
+		case 2:
+			messageSystem.postMessage(Message.ROTATE_LEFT);
+			break;
+
+		case 3:
+			messageSystem.postMessage(Message.ROTATE_RIGHT);
+			break;
+
+		case 4:
+			messageSystem.postMessage(Message.HOLD);
+			break;
+
+		default:
+			messageSystem.postMessage(Message.HARD_DROP);
+			break;
+		}
+	}
+
+	public static class Factory implements InputPolicy.Factory {
+		@Override
+		public InputPolicy create() {
+			return new RandomInputPolicy();
+		}
+	}
+}
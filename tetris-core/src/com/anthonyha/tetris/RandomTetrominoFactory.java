@@ -0,0 +1,145 @@
+package com.anthonyha.tetris;
+
+import java.util.List;
+import java.util.ArrayList;
+
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+public class RandomTetrominoFactory implements TetrominoFactory {
+	
+	public static final Vector2[][] jlstzOffsets =
+		{
+			{new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0) },
+			{new Vector2(0, 0), new Vector2(1, 0), new Vector2(1, -1), new Vector2(0, 2), new Vector2(1, 2) },
+			{new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 0) },
+			{new Vector2(0, 0), new Vector2(-1, 0), new Vector2(-1, -1), new Vector2(0, 2), new Vector2(-1, 2) }
+		};
+	
+	public static final Vector2[][] iOffsets =
+		{
+			{new Vector2(0, 0), new Vector2(-1, 0), new Vector2(2, 0), new Vector2(-1, 0), new Vector2(2, 0) },
+			{new Vector2(-1, 0), new Vector2(0, 0), new Vector2(0, 0), new Vector2(0, 1), new Vector2(0, -2) },
+			{new Vector2(-1, 1), new Vector2(1, 1), new Vector2(-2, 1), new Vector2(1, 0), new Vector2(-2, 0) },
+			{new Vector2(0, 1), new Vector2(0, 1), new Vector2(0, 1), new Vector2(0, -1), new Vector2(0, 2) }
+		};
+	public static final Vector2[][] oOffsets =
+		{
+			{new Vector2(0, 0) },
+			{new Vector2(0, -1) },
+			{new Vector2(-1, -1) },
+			{new Vector2(-1, 0) }
+		};
+	
+	public static final KickTable jlstzKicks = new KickTable(jlstzOffsets);
+	public static final KickTable iKicks = new KickTable(iOffsets);
+	public static final KickTable oKicks = new KickTable(oOffsets);
+	
+	private static final TetrominoNames[] bagOrder = {
+		TetrominoNames.I, TetrominoNames.O, TetrominoNames.T, TetrominoNames.S, TetrominoNames.Z, TetrominoNames.J, TetrominoNames.L
+	};
+	private static final TetrominoNames[] tetrominoNames = TetrominoNames.values();
+	
+	private SeededRandom generator = new SeededRandom(System.currentTimeMillis());
+	
+	// The shuffled bag, which pieces are drawn from the front of
+	private TetrominoNames[] bag = new TetrominoNames[bagOrder.length];
+	private int bagPosition = bag.length;
+	
+	// Pieces handed back through freePiece, reused by getPiece instead of allocating new ones
+	private List<Tetromino> freePieces = new ArrayList<Tetromino>();
+	
+	@Override
+	public Tetromino getPiece() {
+		if (bagPosition == bag.length) {
+			generateGrabBag();
+		}
+		
+		return getPiece(bag[bagPosition++]);
+	}
+	
+	@Override
+	public void reset() {
+		bagPosition = bag.length;
+	}
+	
+	@Override
+	public Tetromino getPiece(TetrominoNames tetrominoName) {
+		KickTable kickTable = getKickTable(tetrominoName);
+		if (kickTable == null) {
+			return null;
+		}
+		
+		if (freePieces.isEmpty()) {
+			return new Tetromino(tetrominoName, kickTable);
+		}
+		
+		Tetromino tetromino = freePieces.remove(freePieces.size() - 1);
+		tetromino.set(tetrominoName, kickTable);
+		return tetromino;
+	}
+	
+	// Retrieve the wall kicks used by tetrominoes of the given name
+	public static KickTable getKickTable(TetrominoNames tetrominoName) {
+		switch (tetrominoName) {
+		case J:
+		case L:
+		case S:
+		case T:
+		case Z:
+			return jlstzKicks;
+		case I:
+			return iKicks;
+		case O:
+			return oKicks;
+		default:
+			return null;
+		}
+	}
+	
+	@Override
+	public void freePiece(Tetromino tetromino) {
+		freePieces.add(tetromino);
+	}
+	
+	@Override
+	public void setSeed(long seed) {
+		generator.setSeed(seed);
+	}
+	
+	@Override
+	public int writeState(int[] words, int offset) {
+		long state = generator.getState();
+		words[offset++] = (int) (state >>> 32);
+		words[offset++] = (int) state;
+		
+		words[offset++] = bagPosition;
+		for (int i = bagPosition; i < bag.length; ++i) {
+			words[offset++] = bag[i].ordinal();
+		}
+		return offset;
+	}
+	
+	@Override
+	public int readState(int[] words, int offset) {
+		generator.setState((long) words[offset++] << 32 | words[offset++] & 0xFFFFFFFFL);
+		
+		bagPosition = words[offset++];
+		for (int i = bagPosition; i < bag.length; ++i) {
+			bag[i] = tetrominoNames[words[offset++]];
+		}
+		return offset;
+	}
+	
+	// Shuffles a new bag the same way Collections.shuffle would, so seeds keep dealing the pieces they always have
+	private void generateGrabBag() {
+		System.arraycopy(bagOrder, 0, bag, 0, bag.length);
+		
+		for (int i = bag.length; i > 1; --i) {
+			int j = generator.nextInt(i);
+			TetrominoNames swap = bag[i - 1];
+			bag[i - 1] = bag[j];
+			bag[j] = swap;
+		}
+		bagPosition = 0;
+	}
+}
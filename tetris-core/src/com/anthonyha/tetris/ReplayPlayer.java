@@ -0,0 +1,441 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Plays a replay written by ReplayRecorder back through a headless TetrisBoard, as fast as the board can tick.
+//Every recorded command is posted on the tick it was recorded on, and the board is checked against the replay's checksums
+//and final results. A replay that was edited, or that plays out differently because the game rules changed, fails.
+//A replay can also be played part of the way with playTo, and seek jumps to any tick by restoring the nearest keyframe before it
+//and playing on from there, so no seek simulates more than ReplayRecorder.KEYFRAME_INTERVAL ticks.
+//A board restored from a keyframe can only undo back to the keyframe's tetromino. An undo that reaches further than that
+//restores the keyframe before it and plays on again, which only happens when a player undoes across keyframes.
+public class ReplayPlayer extends AbstractMessageListener {
+
+	private final byte[] data;
+	private int position;
+
+	// Where the events start, and the board's state before the first of them
+	private final int eventsStart;
+	private final BoardSnapshot initialState;
+
+	// Tick of the last event read, and whether it was the end
+	private long recordTick;
+	private boolean ended;
+
+	// The last keyframe read, and the board's own state to compare it with
+	private final BoardSnapshot keyframeState;
+	private final BoardSnapshot spawnState;
+	private final BoardSnapshot playedState;
+	private final int[] keyframeWords;
+	private final int[] playedWords;
+
+	// Tick and file offset of every keyframe, read from the index the first time a seek needs it
+	private int[] keyframeTicks;
+	private int[] keyframeOffsets;
+	private int keyframeCount;
+
+	private final MessageSystem messageSystem;
+	private final TetrisBoard board;
+
+	// Checksums stored in the replay, and the ones the board produced while playing it
+	private long[] recordedChecksums = new long[16];
+	private int recordedCount;
+	private long[] playedChecksums = new long[16];
+	private int playedCount;
+	private int locks;
+
+	// Whether the board has been played from the start, so every checksum can be compared
+	private boolean fromStart = true;
+
+	// The keyframe the board was last restored from, or -1 if it was played from the start
+	private int restoredKeyframe = -1;
+
+	private String failure;
+
+	// Reads the header of a replay and sets up its board. Throws IllegalArgumentException if data isn't a replay this version can play.
+	public ReplayPlayer(byte[] data) {
+		this.data = data;
+
+		if (data.length < 4 || readInt() != ReplayRecorder.MAGIC) {
+			throw new IllegalArgumentException("Not a replay");
+		}
+
+		int version = readByte();
+		if (version != ReplayRecorder.VERSION) {
+			throw new IllegalArgumentException("Unsupported replay version " + version);
+		}
+
+		long seed = readLong();
+		int level = (int) readVarint();
+		long undoLimit = readVarint();
+		if (undoLimit < 0 || undoLimit > ReplayRecorder.MAX_UNDO_LIMIT) {
+			throw new IllegalArgumentException("Undo limit " + undoLimit + " is out of range");
+		}
+
+		messageSystem = new MessageSystem();
+		board = new TetrisBoard(seed, level, messageSystem);
+		board.setUndoLimit((int) undoLimit);
+		messageSystem.add(this, Message.LOCKED_IN);
+
+		eventsStart = position;
+		recordTick = board.getTick();
+		initialState = new BoardSnapshot(board);
+		board.saveState(initialState);
+
+		keyframeState = new BoardSnapshot(board);
+		spawnState = new BoardSnapshot(board);
+		playedState = new BoardSnapshot(board);
+		keyframeWords = new int[keyframeState.getMaxWrittenSize()];
+		playedWords = new int[playedState.getMaxWrittenSize()];
+	}
+
+	// Plays the rest of the replay. Returns true if the board matched every checksum, keyframe and the final results,
+	// or false with the reason left in getFailure(). Checksums are only compared when the replay is played from the start.
+	public boolean play() {
+		if (!playTo(Integer.MAX_VALUE)) {
+			return false;
+		}
+		if (!ended) {
+			return fail("Replay has no end");
+		}
+
+		try {
+			int score = (int) readVarint();
+			int lines = (int) readVarint();
+			int pieces = (int) readVarint();
+			long stateHash = readLong();
+
+			if (fromStart) {
+				for (int i = 0; i < Math.min(recordedCount, playedCount); ++i) {
+					if (recordedChecksums[i] != playedChecksums[i]) {
+						return fail("Checksum after " + (i + 1) * ReplayRecorder.CHECKSUM_INTERVAL + " tetrominoes doesn't match");
+					}
+				}
+				if (recordedCount != playedCount) {
+					return fail("Replay has " + recordedCount + " checksums but the game played " + playedCount);
+				}
+			}
+
+			if (score != board.getScore() || lines != board.getTotalLines() || pieces != board.getPiecesLocked()) {
+				return fail("Replay claims " + score + " points, " + lines + " lines and " + pieces + " pieces but the game ended with "
+						+ board.getScore() + " points, " + board.getTotalLines() + " lines and " + board.getPiecesLocked() + " pieces");
+			}
+			if (stateHash != board.getStateHash()) {
+				return fail("Final state checksum doesn't match");
+			}
+
+			return true;
+		} catch (IllegalArgumentException e) {
+			return fail(e.getMessage());
+		}
+	}
+
+	// Plays the replay on until the board reaches the given tick, or the replay ends. Commands recorded on that tick are posted.
+	// Returns false, with the reason left in getFailure(), if the replay is malformed or the board doesn't match a keyframe.
+	public boolean playTo(int targetTick) {
+		try {
+			while (!ended) {
+				int start = position;
+				long event = readVarint();
+				int code = (int) (event & ((1 << ReplayRecorder.CODE_BITS) - 1));
+				long tick = recordTick + (event >>> ReplayRecorder.CODE_BITS);
+				if (tick > ReplayRecorder.MAX_TICKS) {
+					return fail("Replay runs past tick " + ReplayRecorder.MAX_TICKS + ", the longest a replay can last");
+				}
+				if (tick > targetTick) {
+					position = start;
+					break;
+				}
+				recordTick = tick;
+
+				// Checksums are recorded as the tetromino locks, which may be before the command that locked it has been posted,
+				// so they are only compared once the whole replay has been played
+				if (code == ReplayRecorder.CHECKSUM) {
+					recordChecksum(readLong());
+					continue;
+				}
+
+				while (board.getTick() < recordTick) {
+					board.tick();
+				}
+
+				if (code == ReplayRecorder.END) {
+					ended = true;
+					break;
+				}
+
+				if (code == ReplayRecorder.KEYFRAME) {
+					if (!checkKeyframe()) {
+						return false;
+					}
+					continue;
+				}
+
+				int command = code >> 1;
+				if (command >= ReplayRecorder.commands.length) {
+					return fail("Unknown command code " + code + " on tick " + recordTick);
+				}
+
+				Message message = ReplayRecorder.commands[command];
+				switch (message) {
+				case LEFT:
+				case RIGHT:
+				case SOFT_DROP:
+					messageSystem.postMessage(message, (code & 1) != 0);
+					break;
+
+				case UNDO:
+					// The placements before the keyframe the board was restored from are gone, so undo from an earlier one
+					if (restoredKeyframe >= 0 && !board.canUndo()) {
+						if (!restore(restoredKeyframe - 1)) {
+							return false;
+						}
+						continue;
+					}
+					messageSystem.postMessage(message);
+					break;
+
+				default:
+					messageSystem.postMessage(message);
+					break;
+				}
+			}
+
+			if (!ended) {
+				while (board.getTick() < targetTick) {
+					board.tick();
+				}
+			}
+			return true;
+		} catch (IllegalArgumentException e) {
+			return fail(e.getMessage());
+		}
+	}
+
+	// Moves the board to the given tick, backwards or forwards, by restoring the last keyframe at or before it and playing on
+	// from there. Returns false, with the reason left in getFailure(), if the replay is malformed.
+	public boolean seek(int targetTick) {
+		try {
+			if (keyframeTicks == null) {
+				readIndex();
+			}
+
+			// Play straight on when no keyframe is between here and the target
+			int keyframe = findKeyframe(targetTick);
+			int keyframeTick = keyframe >= 0 ? keyframeTicks[keyframe] : Integer.MIN_VALUE;
+			if (targetTick >= board.getTick() && keyframeTick <= board.getTick()) {
+				return playTo(targetTick);
+			}
+
+			return restore(keyframe) && playTo(targetTick);
+		} catch (IllegalArgumentException e) {
+			return fail(e.getMessage());
+		}
+	}
+
+	// Retrieve the number of keyframes in the replay
+	public int getKeyframeCount() {
+		if (keyframeTicks == null) {
+			try {
+				readIndex();
+			} catch (IllegalArgumentException e) {
+				fail(e.getMessage());
+				return 0;
+			}
+		}
+		return keyframeCount;
+	}
+
+	public TetrisBoard getBoard() {
+		return board;
+	}
+
+	// Retrieve why the last play failed, or null if it didn't
+	public String getFailure() {
+		return failure;
+	}
+
+	@Override
+	public void recieveMessage(Message message) {
+		if (++locks % ReplayRecorder.CHECKSUM_INTERVAL == 0) {
+			if (playedCount == playedChecksums.length) {
+				playedChecksums = grow(playedChecksums);
+			}
+			playedChecksums[playedCount++] = board.getStateHash();
+		}
+	}
+
+	// Puts the board and the replay back to a keyframe, or to the start if keyframe is -1
+	private boolean restore(int keyframe) {
+		if (keyframe >= 0) {
+			position = keyframeOffsets[keyframe];
+			long event = readVarint();
+			if ((event & ((1 << ReplayRecorder.CODE_BITS) - 1)) != ReplayRecorder.KEYFRAME) {
+				return fail("Index points at something other than a keyframe");
+			}
+			recordTick = keyframeTicks[keyframe];
+			locks = (int) readVarint();
+			keyframeState.read(keyframeWords, readKeyframeWords());
+			board.restoreState(keyframeState);
+			if (board.getUndoLimit() > 0) {
+				spawnState.read(keyframeWords, readKeyframeWords());
+				board.resetUndo(spawnState);
+			}
+		} else {
+			position = eventsStart;
+			locks = 0;
+			board.restoreState(initialState);
+			board.setUndoLimit(board.getUndoLimit());
+			recordTick = board.getTick();
+		}
+
+		// Checksums from part of a replay can't be compared
+		fromStart = keyframe < 0;
+		restoredKeyframe = keyframe;
+		recordedCount = 0;
+		playedCount = 0;
+		ended = false;
+		return true;
+	}
+
+	// Reads the keyframe at the current position and compares it with the board
+	private boolean checkKeyframe() {
+		int recordedLocks = (int) readVarint();
+		if (recordedLocks != locks) {
+			return fail("Keyframe on tick " + recordTick + " doesn't match");
+		}
+
+		board.saveState(playedState);
+		if (!checkSnapshot()) {
+			return false;
+		}
+		if (board.getUndoLimit() > 0) {
+			board.saveSpawnState(playedState);
+			return checkSnapshot();
+		}
+		return true;
+	}
+
+	// Reads a snapshot of the keyframe at the current position and compares it with playedState
+	private boolean checkSnapshot() {
+		int count = readKeyframeWords();
+		int played = playedState.write(playedWords);
+
+		if (count != played) {
+			return fail("Keyframe on tick " + recordTick + " doesn't match");
+		}
+		for (int i = 0; i < count; ++i) {
+			if (keyframeWords[i] != playedWords[i]) {
+				return fail("Keyframe on tick " + recordTick + " doesn't match");
+			}
+		}
+		return true;
+	}
+
+	// Reads a keyframe's board state into keyframeWords, and returns its number of words
+	private int readKeyframeWords() {
+		int count = (int) readVarint();
+		if (count < 0 || count > keyframeWords.length) {
+			throw new IllegalArgumentException("Keyframe on tick " + recordTick + " is too large");
+		}
+		for (int i = 0; i < count; ++i) {
+			int word = (int) readVarint();
+			keyframeWords[i] = word >>> 1 ^ -(word & 1);
+		}
+		return count;
+	}
+
+	// Reads the keyframe index from the end of the replay
+	private void readIndex() {
+		if (data.length < eventsStart + 4) {
+			throw new IllegalArgumentException("Replay is truncated");
+		}
+		int restore = position;
+		position = data.length - 4;
+		int indexOffset = readInt();
+		if (indexOffset < eventsStart || indexOffset >= data.length - 4) {
+			throw new IllegalArgumentException("Replay has no index");
+		}
+
+		position = indexOffset;
+		int count = (int) readVarint();
+		if (count < 0 || count > indexOffset) {
+			throw new IllegalArgumentException("Malformed index in replay");
+		}
+		int[] ticks = new int[count];
+		int[] offsets = new int[count];
+		for (int i = 0; i < count; ++i) {
+			ticks[i] = (i > 0 ? ticks[i - 1] : 0) + (int) readVarint();
+			offsets[i] = (i > 0 ? offsets[i - 1] : 0) + (int) readVarint();
+			if (offsets[i] < eventsStart || offsets[i] >= indexOffset) {
+				throw new IllegalArgumentException("Malformed index in replay");
+			}
+		}
+		position = restore;
+
+		keyframeTicks = ticks;
+		keyframeOffsets = offsets;
+		keyframeCount = count;
+	}
+
+	// Retrieve the last keyframe at or before a tick, or -1 if there is none
+	private int findKeyframe(int tick) {
+		int low = 0;
+		int high = keyframeCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (keyframeTicks[middle] <= tick) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high;
+	}
+
+	private void recordChecksum(long checksum) {
+		if (recordedCount == recordedChecksums.length) {
+			recordedChecksums = grow(recordedChecksums);
+		}
+		recordedChecksums[recordedCount++] = checksum;
+	}
+
+	private boolean fail(String reason) {
+		failure = reason;
+		return false;
+	}
+
+	private static long[] grow(long[] array) {
+		long[] grown = new long[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private int readByte() {
+		if (position >= data.length) {
+			throw new IllegalArgumentException("Replay is truncated");
+		}
+		return data[position++] & 0xFF;
+	}
+
+	private long readVarint() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint in replay");
+	}
+
+	private int readInt() {
+		return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+	}
+
+	private long readLong() {
+		return (long) readInt() << 32 | readInt() & 0xFFFFFFFFL;
+	}
+}
@@ -0,0 +1,323 @@
+package com.anthonyha.tetris;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Records every command a TetrisBoard receives, stamped with the tick it arrived on. A board is deterministic given its seed,
+//starting level and the ticks its commands arrive on, so that is all a replay needs to reproduce a whole session.
+//
+//Format, all numbers big-endian or unsigned LEB128 varints:
+//  header: magic "TRPL" (4 bytes), version (1 byte), seed (8 bytes), starting level (varint), undo limit (varint)
+//  events: varint of (ticks since the previous event << 5 | code), where code is a command's index in commands << 1,
+//          plus 1 if its boolean was true. Most events take one or two bytes.
+//          Every CHECKSUM_INTERVAL-th locked tetromino adds an event with code CHECKSUM, followed by the board's state hash (8 bytes).
+//          Every KEYFRAME_INTERVAL ticks an event with code KEYFRAME is followed by the number of tetrominoes locked so far (varint)
+//          and a snapshot of the whole board: its number of words and each int from BoardSnapshot.write (zigzag varints).
+//          If the undo limit isn't 0, a snapshot of the board as the active tetromino spawned follows the same way, which is
+//          where undoing its placement goes back to.
+//  end:    an event with code END on the last tick recorded, followed by the board's score, lines cleared and pieces locked (varints)
+//          and state hash (8 bytes) on that tick
+//  index:  the number of keyframes, then each keyframe's tick and the file offset of its event (varints, both relative to the
+//          previous keyframe's), and finally the file offset of the index itself (4 bytes), so the index is found from the end of the file
+//
+//Events are written into a fixed buffer that is streamed out whenever it fills, so recording allocates nothing per event.
+//Keyframes are only taken when update() is called, which must be between ticks, once every command so far has reached the board.
+public class ReplayRecorder extends AbstractMessageListener {
+
+	public static final int MAGIC = 'T' << 24 | 'R' << 16 | 'P' << 8 | 'L';
+	public static final int VERSION = 7;
+
+	// Every command a replay can hold, in the order of their codes
+	public static final Message[] commands = {
+		Message.LEFT, Message.RIGHT, Message.ROTATE_LEFT, Message.ROTATE_RIGHT, Message.SOFT_DROP,
+		Message.HARD_DROP, Message.HOLD, Message.PAUSE, Message.UNPAUSE, Message.RESTART_GAME, Message.UNDO
+	};
+
+	public static final int CODE_BITS = 5;
+	public static final int END = (1 << CODE_BITS) - 1;
+	public static final int CHECKSUM = END - 1;
+	public static final int KEYFRAME = END - 2;
+
+	// Number of tetrominoes locked between checksums
+	public static final int CHECKSUM_INTERVAL = 16;
+
+	// Number of ticks between keyframes, which is the most a seek has to simulate
+	public static final int KEYFRAME_INTERVAL = 10 * TetrisBoard.TICKS_PER_SECOND;
+
+	// The most ticks a replay can last, paused or not. Players refuse any event after it, so a forged tick can't keep one
+	// simulating for hours, and the recorder ends the replay there.
+	public static final int MAX_TICKS = 24 * 60 * 60 * TetrisBoard.TICKS_PER_SECOND;
+
+	// The most placements a replay's board can undo. The board allocates a snapshot for each, so a player refuses more.
+	public static final int MAX_UNDO_LIMIT = 1000;
+
+	// The longest a single event, the header or the footer can be
+	private static final int MAX_RECORD_SIZE = 40;
+
+	// Code of each message by ordinal, or -1 if it isn't a command
+	private static final int[] codes = new int[Message.values().length];
+	static {
+		for (int i = 0; i < codes.length; ++i) {
+			codes[i] = -1;
+		}
+		for (int i = 0; i < commands.length; ++i) {
+			codes[commands[i].ordinal()] = i << 1;
+		}
+	}
+
+	private final byte[] buffer;
+	private int position;
+
+	// Bytes streamed out before the buffer's
+	private int written;
+
+	private TetrisBoard board;
+	private OutputStream out;
+	private int lastTick;
+	private int locks;
+
+	// Allocated for the first board recorded, which every other board is the same size as
+	private BoardSnapshot snapshot;
+	private int[] snapshotWords;
+	private int lastKeyframeTick;
+
+	// Tick and file offset of every keyframe
+	private int[] keyframeTicks = new int[64];
+	private int[] keyframeOffsets = new int[64];
+	private int keyframeCount;
+
+	// The first error writing the replay, after which recording stops
+	private IOException error;
+
+	public ReplayRecorder(MessageSystem messageSystem, int bufferSize) {
+		buffer = new byte[Math.max(bufferSize, MAX_RECORD_SIZE)];
+
+		for (int i = 0; i < commands.length; ++i) {
+			messageSystem.add(this, commands[i]);
+		}
+		messageSystem.add(this, Message.LOCKED_IN);
+	}
+
+	// Starts recording the commands board receives into out. Must be called before the board has been played,
+	// and after its undo limit has been set. Throws IllegalArgumentException if the limit is over MAX_UNDO_LIMIT.
+	public void start(TetrisBoard board, OutputStream out) {
+		if (board.getUndoLimit() > MAX_UNDO_LIMIT) {
+			throw new IllegalArgumentException("Undo limit " + board.getUndoLimit() + " is over " + MAX_UNDO_LIMIT);
+		}
+		if (this.out != null) {
+			finish();
+		}
+
+		this.board = board;
+		this.out = out;
+		if (snapshot == null) {
+			snapshot = new BoardSnapshot(board);
+			snapshotWords = new int[snapshot.getMaxWrittenSize()];
+		}
+		lastTick = board.getTick();
+		lastKeyframeTick = lastTick;
+		locks = 0;
+		keyframeCount = 0;
+		position = 0;
+		written = 0;
+		error = null;
+
+		writeInt(MAGIC);
+		buffer[position++] = VERSION;
+		writeLong(board.getSeed());
+		writeVarint(board.getStartLevel());
+		writeVarint(board.getUndoLimit());
+	}
+
+	// Writes out every event recorded so far
+	public void flush() {
+		if (out != null) {
+			try {
+				out.write(buffer, 0, position);
+				out.flush();
+			} catch (IOException e) {
+				stop(e);
+			}
+			written += position;
+			position = 0;
+		}
+	}
+
+	// Ends the replay and closes its stream
+	public void finish() {
+		if (out != null) {
+			OutputStream stream = out;
+			writeEvent(END);
+			if (out != null) {
+				writeVarint(board.getScore());
+				writeVarint(board.getTotalLines());
+				writeVarint(board.getPiecesLocked());
+				writeLong(board.getStateHash());
+				writeIndex();
+			}
+			flush();
+
+			try {
+				stream.close();
+			} catch (IOException e) {
+				if (error == null) {
+					error = e;
+				}
+			}
+			stop(error);
+		}
+	}
+
+	// Takes a keyframe if one is due. Call once per frame, after the board has been updated.
+	// Ends the replay a keyframe interval before MAX_TICKS, so it ends in time unless a frame takes longer than that,
+	// and leaves an error so it isn't started again mid-game.
+	public void update() {
+		if (out != null && board.getTick() >= MAX_TICKS - KEYFRAME_INTERVAL) {
+			finish();
+			if (error == null) {
+				error = new IOException("Game ran past the " + MAX_TICKS + " ticks a replay can hold");
+			}
+			return;
+		}
+		if (out != null && board.getTick() - lastKeyframeTick >= KEYFRAME_INTERVAL) {
+			writeKeyframe();
+		}
+	}
+
+	// Writes a snapshot of the board as it is now, which players can seek to
+	public void writeKeyframe() {
+		if (!reserve()) {
+			return;
+		}
+
+		int offset = written + position;
+		writeEvent(KEYFRAME);
+		writeVarint(locks);
+
+		board.saveState(snapshot);
+		writeSnapshot();
+		if (board.getUndoLimit() > 0) {
+			board.saveSpawnState(snapshot);
+			writeSnapshot();
+		}
+
+		if (keyframeCount == keyframeTicks.length) {
+			keyframeTicks = grow(keyframeTicks);
+			keyframeOffsets = grow(keyframeOffsets);
+		}
+		keyframeTicks[keyframeCount] = board.getTick();
+		keyframeOffsets[keyframeCount] = offset;
+		++keyframeCount;
+
+		lastKeyframeTick = board.getTick();
+	}
+
+	public boolean isRecording() {
+		return out != null;
+	}
+
+	// Whether no piece has been locked since the recording started, so the replay would show nothing
+	public boolean isEmpty() {
+		return locks == 0;
+	}
+
+	// Retrieve the error that stopped the last recording, or null if there was none
+	public IOException getError() {
+		return error;
+	}
+
+	@Override
+	public void recieveMessage(Message message) {
+		if (message == Message.LOCKED_IN) {
+			if (++locks % CHECKSUM_INTERVAL == 0) {
+				writeEvent(CHECKSUM);
+				if (out != null) {
+					writeLong(board.getStateHash());
+				}
+			}
+		} else {
+			writeEvent(codes[message.ordinal()]);
+		}
+	}
+
+	@Override
+	public void recieveMessage(Message message, boolean extra) {
+		writeEvent(codes[message.ordinal()] | (extra ? 1 : 0));
+	}
+
+	private void writeEvent(int code) {
+		if (code < 0 || !reserve()) {
+			return;
+		}
+
+		int tick = board.getTick();
+		writeVarint((long) (tick - lastTick) << CODE_BITS | code);
+		lastTick = tick;
+	}
+
+	private void writeSnapshot() {
+		int count = snapshot.write(snapshotWords);
+		if (reserve()) {
+			writeVarint(count);
+		}
+		for (int i = 0; i < count && reserve(); ++i) {
+			writeVarint((snapshotWords[i] << 1 ^ snapshotWords[i] >> 31) & 0xFFFFFFFFL);
+		}
+	}
+
+	private void writeIndex() {
+		int indexOffset = written + position;
+		writeVarint(keyframeCount);
+
+		for (int i = 0; i < keyframeCount && reserve(); ++i) {
+			writeVarint(keyframeTicks[i] - (i > 0 ? keyframeTicks[i - 1] : 0));
+			writeVarint(keyframeOffsets[i] - (i > 0 ? keyframeOffsets[i - 1] : 0));
+		}
+
+		if (reserve()) {
+			writeInt(indexOffset);
+		}
+	}
+
+	// Makes room in the buffer for the longest record, and returns whether the replay is still being recorded
+	private boolean reserve() {
+		if (out != null && buffer.length - position < MAX_RECORD_SIZE) {
+			flush();
+		}
+		return out != null;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] grown = new int[array.length * 2];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private void writeVarint(long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeLong(long value) {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	private void writeInt(int value) {
+		buffer[position++] = (byte) (value >>> 24);
+		buffer[position++] = (byte) (value >>> 16);
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) value;
+	}
+
+	private void stop(IOException e) {
+		error = e;
+		out = null;
+		board = null;
+	}
+}
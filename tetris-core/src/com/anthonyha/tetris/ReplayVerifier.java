@@ -0,0 +1,97 @@
+package com.anthonyha.tetris;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Plays back every replay in a directory across every core, and reports the ones that don't match what they recorded.
+//Exits with status 1 if any replay fails, so it can guard leaderboard submissions or catch changes to the game rules in a build.
+//Practice games, which could be undone, fail too unless -practice is given, as their scores can't go on a leaderboard.
+public class ReplayVerifier {
+
+	public static final String EXTENSION = ".replay";
+
+	public static void main(String[] args) throws InterruptedException {
+		final boolean practice = args.length > 0 && args[0].equals("-practice");
+		int arg = practice ? 1 : 0;
+		if (args.length < arg + 1) {
+			System.err.println("Usage: ReplayVerifier [-practice] <replay directory> [threads]");
+			System.exit(1);
+		}
+
+		File[] files = new File(args[arg]).listFiles();
+		if (files == null) {
+			System.err.println("Not a directory: " + args[arg]);
+			System.exit(1);
+		}
+		Arrays.sort(files);
+
+		int threads = args.length > arg + 1 ? Integer.parseInt(args[arg + 1]) : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+
+		long startTime = System.nanoTime();
+		for (final File file : files) {
+			if (!file.getName().endsWith(EXTENSION)) {
+				continue;
+			}
+
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws IOException {
+					return verify(file, practice);
+				}
+			}));
+		}
+
+		int failed = 0;
+		for (Future<String> result : results) {
+			String failure;
+			try {
+				failure = result.get();
+			} catch (ExecutionException e) {
+				failure = e.getCause().toString();
+			}
+
+			if (failure != null) {
+				System.out.println("FAILED " + failure);
+				++failed;
+			}
+		}
+		executor.shutdown();
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+
+		System.out.printf("Verified %d replays on %d threads in %.2f s, %d failed%n", results.size(), threads, seconds, failed);
+		System.exit(failed > 0 ? 1 : 0);
+	}
+
+	// Plays a replay file back, and returns why it failed or null if it passed. Practice games only pass if practice is true.
+	public static String verify(File file, boolean practice) throws IOException {
+		byte[] data = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(data);
+		} finally {
+			in.close();
+		}
+
+		try {
+			ReplayPlayer player = new ReplayPlayer(data);
+			if (!practice && player.getBoard().getUndoLimit() > 0) {
+				return file.getName() + ": Practice game, played with an undo limit of " + player.getBoard().getUndoLimit();
+			}
+			return player.play() ? null : file.getName() + ": " + player.getFailure();
+		} catch (IllegalArgumentException e) {
+			return file.getName() + ": " + e.getMessage();
+		}
+	}
+}
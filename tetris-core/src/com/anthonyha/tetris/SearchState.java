@@ -0,0 +1,153 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//A copy of what planning a placement needs from a TetrisBoard: the stack, the active tetromino and where it is, the hold slot and the queue.
+//Capturing copies all of it, so a captured state can be read by any number of threads while the board plays on,
+//and copying one state into another is a handful of array copies.
+public class SearchState {
+
+	// Upright tetrominoes shared by every search. They are only ever read, and must never be rotated.
+	private static final TetrominoNames[] nameValues = TetrominoNames.values();
+	private static final Tetromino[] tetrominoes;
+	static {
+		int shapes = TetrominoNames.GHOST.ordinal();
+		tetrominoes = new Tetromino[shapes];
+
+		for (int i = 0; i < shapes; ++i) {
+			tetrominoes[i] = new Tetromino(nameValues[i], RandomTetrominoFactory.getKickTable(nameValues[i]));
+		}
+	}
+
+	private BlockGrid field;
+	private long stackHash;
+
+	// The active tetromino followed by the queue, in the order they will be played
+	private TetrominoNames[] pieces = new TetrominoNames[0];
+	private int pieceCount;
+
+	private int activeX, activeY;
+	private RotationState activeRotation;
+
+	private TetrominoNames held;
+	private boolean canHold;
+
+	// Spawn position of each tetromino, indexed by name
+	private final int[] spawnX = new int[tetrominoes.length];
+	private final int[] spawnY = new int[tetrominoes.length];
+
+	// Copies the state of a board. Must be called from the thread the board is played on.
+	public void capture(TetrisBoard board) {
+		BlockGrid grid = board.gameGrid;
+		if (field == null || field.getWidth() != grid.getWidth() || field.getHeight() != grid.getHeight()) {
+			field = new BlockGrid(grid.getWidth(), grid.getHeight());
+		}
+		field.set(grid);
+		stackHash = board.getStackHash();
+
+		pieceCount = 1 + board.tetrominoQueue.size();
+		if (pieces.length < pieceCount) {
+			pieces = new TetrominoNames[pieceCount];
+		}
+		pieces[0] = board.activeTetromino.getName();
+		for (int i = 1; i < pieceCount; ++i) {
+			pieces[i] = board.tetrominoQueue.get(i - 1).getName();
+		}
+
+		activeX = board.tetrominoPos.x;
+		activeY = board.tetrominoPos.y;
+		activeRotation = board.activeTetromino.getRotationState();
+
+		held = board.heldTetromino != null ? board.heldTetromino.getName() : null;
+		canHold = board.canHold();
+
+		for (int i = 0; i < tetrominoes.length; ++i) {
+			spawnX[i] = board.getSpawnX(tetrominoes[i]);
+			spawnY[i] = board.getSpawnY(tetrominoes[i]);
+		}
+	}
+
+	// Makes this state a copy of another
+	public void set(SearchState other) {
+		if (field == null || field.getWidth() != other.field.getWidth() || field.getHeight() != other.field.getHeight()) {
+			field = new BlockGrid(other.field.getWidth(), other.field.getHeight());
+		}
+		field.set(other.field);
+		stackHash = other.stackHash;
+
+		pieceCount = other.pieceCount;
+		if (pieces.length < pieceCount) {
+			pieces = new TetrominoNames[pieceCount];
+		}
+		System.arraycopy(other.pieces, 0, pieces, 0, pieceCount);
+
+		activeX = other.activeX;
+		activeY = other.activeY;
+		activeRotation = other.activeRotation;
+
+		held = other.held;
+		canHold = other.canHold;
+
+		System.arraycopy(other.spawnX, 0, spawnX, 0, spawnX.length);
+		System.arraycopy(other.spawnY, 0, spawnY, 0, spawnY.length);
+	}
+
+	public SearchState copy() {
+		SearchState copy = new SearchState();
+		copy.set(this);
+		return copy;
+	}
+
+	public BlockGrid getField() {
+		return field;
+	}
+
+	// Zobrist hash of the field
+	public long getStackHash() {
+		return stackHash;
+	}
+
+	// Retrieve the i-th piece to be played, the active tetromino being the 0th
+	public TetrominoNames getPiece(int i) {
+		return pieces[i];
+	}
+
+	public int getPieceCount() {
+		return pieceCount;
+	}
+
+	public int getActiveX() {
+		return activeX;
+	}
+
+	public int getActiveY() {
+		return activeY;
+	}
+
+	public RotationState getActiveRotation() {
+		return activeRotation;
+	}
+
+	// Retrieve the held tetromino's name, or null if nothing is held
+	public TetrominoNames getHeld() {
+		return held;
+	}
+
+	public boolean canHold() {
+		return canHold;
+	}
+
+	public int getSpawnX(TetrominoNames name) {
+		return spawnX[name.ordinal()];
+	}
+
+	public int getSpawnY(TetrominoNames name) {
+		return spawnY[name.ordinal()];
+	}
+
+	// Retrieve a shared upright tetromino to search placements of the given name with
+	public static Tetromino getTetromino(TetrominoNames name) {
+		return tetrominoes[name.ordinal()];
+	}
+}
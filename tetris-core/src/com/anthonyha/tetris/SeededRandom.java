@@ -0,0 +1,54 @@
+package com.anthonyha.tetris;
+
+//The 48 bit linear congruential generator java.util.Random uses, with the same constants and the same nextInt,
+//so it produces exactly the numbers java.util.Random would for the same seed.
+//Unlike java.util.Random its state can be read and restored, which snapshots of a board need.
+public class SeededRandom {
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	private long state;
+
+	public SeededRandom(long seed) {
+		setSeed(seed);
+	}
+
+	public void setSeed(long seed) {
+		state = (seed ^ MULTIPLIER) & MASK;
+	}
+
+	// Retrieve the generator's internal state, which isn't the seed it was given
+	public long getState() {
+		return state;
+	}
+
+	public void setState(long state) {
+		this.state = state & MASK;
+	}
+
+	// A uniformly distributed int from 0 to bound - 1, the same as java.util.Random.nextInt(bound)
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+
+		if ((bound & -bound) == bound) {
+			return (int) ((bound * (long) next(31)) >> 31);
+		}
+
+		int bits, value;
+		do {
+			bits = next(31);
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0);
+
+		return value;
+	}
+
+	private int next(int bits) {
+		state = (state * MULTIPLIER + ADDEND) & MASK;
+		return (int) (state >>> (48 - bits));
+	}
+}
@@ -0,0 +1,73 @@
+package com.anthonyha.tetris;
+
+//Scores a field by a weighted sum of its aggregate column height, holes, bumpiness and the lines that were just cleared.
+//The default weights are the ones commonly used for single-piece Tetris bots, tuned by a genetic algorithm.
+//Expects a field laid out like TetrisBoard's grid, with walls in the outer columns, a floor in row 0 and a ceiling in the top row.
+public class StackHeuristic implements PlacementHeuristic {
+
+	private final float heightWeight;
+	private final float linesWeight;
+	private final float holesWeight;
+	private final float bumpinessWeight;
+
+	private int[] columnHeights = new int[0];
+
+	public StackHeuristic() {
+		this(-0.510066f, 0.760666f, -0.35663f, -0.184483f);
+	}
+
+	public StackHeuristic(float heightWeight, float linesWeight, float holesWeight, float bumpinessWeight) {
+		this.heightWeight = heightWeight;
+		this.linesWeight = linesWeight;
+		this.holesWeight = holesWeight;
+		this.bumpinessWeight = bumpinessWeight;
+	}
+
+	@Override
+	public float evaluate(BlockGrid field, int linesCleared) {
+		int width = field.getWidth();
+		if (columnHeights.length != width) {
+			columnHeights = new int[width];
+		}
+
+		// Walk down the rows between the ceiling and the floor. A column's height is set by the first filled block found in it,
+		// and every empty block below a filled one is a hole.
+		int playfield = ((1 << (width - 1)) - 1) & ~1;
+		int covered = 0;
+		int holes = 0;
+
+		for (int y = field.getHeight() - 2; y > 0; --y) {
+			int row = field.getRow(y) & playfield;
+
+			int newlyCovered = row & ~covered;
+			while (newlyCovered != 0) {
+				columnHeights[Integer.numberOfTrailingZeros(newlyCovered)] = y;
+				newlyCovered &= newlyCovered - 1;
+			}
+
+			covered |= row;
+			holes += Integer.bitCount(covered & ~row);
+		}
+
+		int aggregateHeight = 0;
+		int bumpiness = 0;
+		for (int x = 1; x < width - 1; ++x) {
+			int height = (covered & (1 << x)) != 0 ? columnHeights[x] : 0;
+			aggregateHeight += height;
+
+			if (x > 1) {
+				bumpiness += Math.abs(height - columnHeights[x - 1]);
+			}
+			columnHeights[x] = height;
+		}
+
+		return heightWeight * aggregateHeight + linesWeight * linesCleared + holesWeight * holes + bumpinessWeight * bumpiness;
+	}
+
+	public static class Factory implements PlacementHeuristic.Factory {
+		@Override
+		public PlacementHeuristic create() {
+			return new StackHeuristic();
+		}
+	}
+}
@@ -0,0 +1,973 @@
+package com.anthonyha.tetris;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+public class TetrisBoard extends AbstractMessageListener {
+	private static final int BOARD_WIDTH = 12;
+	private static final int BOARD_HEIGHT = 24;
+	private static final int BOARD_TOP_MARGIN = 2;
+	private static final int QUEUE_LENGTH = 3;
+	private static final int MAX_LOCK_RESETS = 5;
+	
+	// The board is simulated in fixed ticks, so that its timing doesn't depend on the frame rate
+	public static final int TICKS_PER_SECOND = 1000;
+	
+	// Most words saveState can write into a snapshot, besides the grid
+	public static final int STATE_SIZE = 64;
+	
+	private static final TetrominoNames[] tetrominoNames = TetrominoNames.values();
+	private static final RotationState[] rotationStates = RotationState.values();
+	
+	//Score multipliers for no lines cleared, single, double, triple, and quad respectively.
+	private static final int[] scoreMultipliers = {0, 100, 300, 500, 800};
+	
+	private TetrominoFactory factory;
+	private MessageSystem messageSystem;
+	
+	// What the board was created with, which together with its commands decides the whole game
+	private long seed;
+	private int startLevel;
+	
+	// Timers and times are counted in ticks
+	private int fallTimer;
+	private int lockTimer;
+	private int moveTimer;
+	
+	private int tick = 0;
+	private float tickAccumulator = 0f;
+
+	private boolean loss;
+	
+	private boolean left, right, down, held;
+	
+	private int lockResets = 0;
+	private int lastClear = 0;
+	private int score = 0;
+	private int totalLines = 0;
+	private int piecesLocked = 0;
+	private int level;
+	private int goal;
+	
+	private int softDropTime;
+	private int fallTime;
+	private int lockTime;
+	private int dasTime;
+	private int amTime;
+	
+	private boolean isPaused;
+	
+	// Landing row of the active tetromino, only recalculated after it shifts, rotates or spawns, or the stack changes
+	private int ghostY;
+	private boolean ghostValid;
+	
+	// Height of the stack in each column, not counting the ceiling
+	private int[] columnHeights = new int[BOARD_WIDTH];
+	
+	// Zobrist hash of the game grid, updated as tetrominoes lock and lines clear
+	private long stackHash;
+	
+	// Ring of the board as each of the last few tetrominoes spawned, newest at undoNewest, or null if undo is off
+	private BoardSnapshot[] undoSnapshots;
+	private int undoNewest;
+	private int undoCount;
+	
+	private BlockGrid spawnField;
+	
+	public enum TetrisScores {
+		NONE, SINGLE, DOUBLE, TRIPLE, TETRIS, BACKTOBACK, TSPIN
+	}
+	
+	public BlockGrid gameGrid;
+	public Tetromino activeTetromino;
+	public Tetromino heldTetromino;
+	public Tetromino ghostTetromino;
+	public List<Tetromino> tetrominoQueue;
+
+	public Vector2 tetrominoPos;
+	
+
+	public TetrisBoard(long seed, int level, MessageSystem messageSystem) {
+		this.messageSystem = messageSystem;
+		this.seed = seed;
+		this.startLevel = level;
+		
+		messageSystem.add(this, Message.LEFT);
+		messageSystem.add(this, Message.RIGHT);
+		messageSystem.add(this, Message.ROTATE_LEFT);
+		messageSystem.add(this, Message.ROTATE_RIGHT);
+		messageSystem.add(this, Message.SOFT_DROP);
+		messageSystem.add(this, Message.HARD_DROP);
+		messageSystem.add(this, Message.HOLD);
+		messageSystem.add(this, Message.PAUSE);
+		messageSystem.add(this, Message.UNPAUSE);
+		messageSystem.add(this, Message.RESTART_GAME);
+		messageSystem.add(this, Message.UNDO);
+		
+		tetrominoPos = new Vector2(0, 0);
+		tetrominoQueue = new ArrayList<Tetromino>(QUEUE_LENGTH);
+		
+		factory = new RandomTetrominoFactory();
+		factory.setSeed(seed);
+		
+		setGameUp(level);
+	}
+
+	// Advances the board by however many whole ticks fit in deltaTime seconds, carrying the remainder over to the next update
+	public void update(float deltaTime) {
+		tickAccumulator += deltaTime * TICKS_PER_SECOND;
+		
+		while (tickAccumulator >= 1f) {
+			tick();
+			tickAccumulator -= 1f;
+		}
+	}
+	
+	// Advances the board by exactly one tick
+	public void tick() {
+		++tick;
+		
+		if (!loss && !isPaused) {
+			// Process DAS movement
+			while (moveTimer >= dasTime) {
+				if (left) {
+					moveLeft();
+				} else if (right) {
+					moveRight();
+				}
+				
+				moveTimer -= amTime;
+			}
+			
+			if (left ^ right) {
+				++moveTimer;
+			} else {
+				moveTimer = 0;
+			}
+	
+			// Check for intersection downwards and adds to the lock timer if there is one
+			if (gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y - 1)) {
+				++lockTimer;
+			} else {
+				lockTimer = 0;
+			}
+	
+			// If lock time has been exceeded, lock and spawn a new tetromino
+			if (lockTimer >= lockTime) {
+				if (lockTetromino()) {
+					lockTimer -= lockTime;
+				}
+			} else {
+				++fallTimer;
+			}
+			
+			// Make the piece fall
+			if (down) {
+				while (fallTimer >= softDropTime) {
+					if (!gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y - 1)) {
+						--tetrominoPos.y;
+						lockResets = 0;
+						score += 1;
+						
+						messageSystem.postMessage(MessageSystem.Message.SOFT_DROPPED);
+					}
+					fallTimer -= softDropTime;
+					
+				}
+			} else {
+				while (fallTimer >= fallTime) {
+					if (!gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y - 1)) {
+						--tetrominoPos.y;
+						lockResets = 0;
+					}
+					fallTimer -= fallTime;
+					
+				}
+			}
+			
+		}
+		
+		// Messages held back during the tick are delivered once it is over
+		messageSystem.deliverQueued();
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	// Starts a new game from seed, leaving the board as if it had just been made with it, at its start level
+	public void newGame(long seed) {
+		this.seed = seed;
+		tick = 0;
+		tickAccumulator = 0f;
+		factory.setSeed(seed);
+		
+		setGameUp(startLevel);
+	}
+	
+	// Level the board was created at. Restarting always starts again at level 1.
+	public int getStartLevel() {
+		return startLevel;
+	}
+	
+	// Number of ticks the board has been simulated for
+	public int getTick() {
+		return tick;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public int getGoal() {
+		return goal;
+	}
+	
+	public int getGhostX() {
+		return tetrominoPos.x;
+	}
+	
+	public int getGhostY() {
+		if (!ghostValid) {
+			ghostY = findLandingY();
+			ghostValid = true;
+		}
+		return ghostY;
+	}
+	
+	// Position a tetromino is placed at when it spawns
+	public int getSpawnX(Tetromino t) {
+		return BOARD_WIDTH / 2 - (t.blockGrid.getWidth() + 1) / 2 + Tetromino.spawnOffsets.get(t.getName()).x;
+	}
+	
+	public int getSpawnY(Tetromino t) {
+		return BOARD_HEIGHT - 1 - t.blockGrid.getHeight() + Tetromino.spawnOffsets.get(t.getName()).y;
+	}
+	
+	public boolean canHold() {
+		return !held;
+	}
+	
+	public boolean isPaused() {
+		return isPaused;
+	}
+	
+	public boolean isLoss() {
+		return loss;
+	}
+	
+	public int getLinesCleared() {
+		return lastClear;
+	}
+	
+	// Lines cleared since the game was set up
+	public int getTotalLines() {
+		return totalLines;
+	}
+	
+	public int getPiecesLocked() {
+		return piecesLocked;
+	}
+	
+	// Zobrist hash of the blocks in the game grid
+	public long getStackHash() {
+		return stackHash;
+	}
+	
+	// Zobrist hash of the game grid, the active tetromino and where it is, the hold slot and the queue.
+	// Two boards playing the same game hash the same on every tick, so this doubles as a cheap checksum of the board.
+	public long getStateHash() {
+		long hash = stackHash ^ Zobrist.hashHold(heldTetromino != null ? heldTetromino.getName() : null, !held);
+		
+		if (activeTetromino != null) {
+			hash ^= Zobrist.hashPiece(activeTetromino.getName(), activeTetromino.getRotationState(), tetrominoPos.x, tetrominoPos.y);
+		}
+		for (int i = 0; i < tetrominoQueue.size(); ++i) {
+			hash ^= Zobrist.hashQueued(i, tetrominoQueue.get(i).getName());
+		}
+		return hash;
+	}
+	
+	// Keep the board as it was at the start of each of the last placements tetrominoes, so that many can be undone,
+	// starting from the board as it is now. Every snapshot is allocated here, and each lock after only copies into the oldest.
+	// 0 turns undo off.
+	public void setUndoLimit(int placements) {
+		if (placements <= 0) {
+			undoSnapshots = null;
+			undoCount = 0;
+			return;
+		}
+		
+		if (undoSnapshots == null || undoSnapshots.length != placements + 1) {
+			undoSnapshots = new BoardSnapshot[placements + 1];
+			for (int i = 0; i < undoSnapshots.length; ++i) {
+				undoSnapshots[i] = new BoardSnapshot(this);
+			}
+		}
+		undoCount = 0;
+		saveUndo();
+	}
+	
+	public int getUndoLimit() {
+		return undoSnapshots != null ? undoSnapshots.length - 1 : 0;
+	}
+	
+	// Check if there is a placement to undo
+	public boolean canUndo() {
+		return undoCount > 1;
+	}
+	
+	// Save the board as it was when the active tetromino spawned, which undoing the next placement goes back to.
+	// Only kept while undo is on.
+	public void saveSpawnState(BoardSnapshot snapshot) {
+		if (undoSnapshots != null) {
+			snapshot.set(undoSnapshots[undoNewest]);
+		}
+	}
+	
+	// Forget every placement there is to undo, and go back to spawnState when the placement of the active tetromino is undone.
+	// For restoring a board part of the way through a game without the placements before it, like from a replay's keyframe.
+	public void resetUndo(BoardSnapshot spawnState) {
+		if (undoSnapshots != null) {
+			undoSnapshots[undoNewest].set(spawnState);
+			undoCount = 1;
+		}
+	}
+	
+	// Push the stack up a row, and fill the new bottom row with the blocks set in mask, bit 0 being the leftmost column.
+	// Whatever was in the top row is pushed off the board, and the active tetromino moves up out of the way if it has to.
+	// Used for garbage and for building boards to measure on.
+	public void raiseStack(int mask) {
+		stackHash ^= Zobrist.hashRows(gameGrid, 1, BOARD_HEIGHT - 1);
+		
+		for (int y = BOARD_HEIGHT - 2; y > 1; --y) {
+			gameGrid.copyRow(y - 1, y);
+		}
+		gameGrid.setRow(1, 1 | mask << 1 | 1 << (BOARD_WIDTH - 1));
+		
+		stackHash ^= Zobrist.hashRows(gameGrid, 1, BOARD_HEIGHT - 1);
+		
+		for (int x = 0; x < BOARD_WIDTH; ++x) {
+			columnHeights[x] = findColumnHeight(x, BOARD_HEIGHT - 2);
+		}
+		
+		if (activeTetromino != null) {
+			while (gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y) && tetrominoPos.y < BOARD_HEIGHT) {
+				++tetrominoPos.y;
+			}
+		}
+		ghostValid = false;
+	}
+	
+	// Copy everything the game depends on into a snapshot: the grid, every tetromino, timers, score and the randomizer.
+	// Time left over from the last frame isn't part of it. Only call this between ticks.
+	public void saveState(BoardSnapshot snapshot) {
+		int[] words = snapshot.words;
+		int i = 0;
+		words[i++] = tick;
+		words[i++] = fallTimer;
+		words[i++] = lockTimer;
+		words[i++] = moveTimer;
+		words[i++] = (loss ? 1 : 0) | (left ? 2 : 0) | (right ? 4 : 0) | (down ? 8 : 0) | (held ? 16 : 0) | (isPaused ? 32 : 0);
+		words[i++] = lockResets;
+		words[i++] = lastClear;
+		words[i++] = score;
+		words[i++] = totalLines;
+		words[i++] = piecesLocked;
+		words[i++] = level;
+		words[i++] = goal;
+		
+		// Saved rather than worked out again on restore, which would take longer than the rest put together
+		words[i++] = softDropTime;
+		words[i++] = fallTime;
+		words[i++] = lockTime;
+		words[i++] = dasTime;
+		words[i++] = amTime;
+		words[i++] = (int) (stackHash >>> 32);
+		words[i++] = (int) stackHash;
+		for (int x = 0; x < BOARD_WIDTH; ++x) {
+			words[i++] = columnHeights[x];
+		}
+		
+		words[i++] = activeTetromino.getName().ordinal() | activeTetromino.getRotationState().ordinal() << 8;
+		words[i++] = tetrominoPos.x;
+		words[i++] = tetrominoPos.y;
+		words[i++] = heldTetromino != null ? heldTetromino.getName().ordinal() : -1;
+		words[i++] = tetrominoQueue.size();
+		for (int q = 0; q < tetrominoQueue.size(); ++q) {
+			words[i++] = tetrominoQueue.get(q).getName().ordinal();
+		}
+		
+		snapshot.wordCount = factory.writeState(words, i);
+		snapshot.grid.set(gameGrid);
+	}
+	
+	// Rewind or fast forward the board to a snapshot saved from a board with the same seed
+	public void restoreState(BoardSnapshot snapshot) {
+		int[] words = snapshot.words;
+		int i = 0;
+		tick = words[i++];
+		fallTimer = words[i++];
+		lockTimer = words[i++];
+		moveTimer = words[i++];
+		
+		int flags = words[i++];
+		loss = (flags & 1) != 0;
+		left = (flags & 2) != 0;
+		right = (flags & 4) != 0;
+		down = (flags & 8) != 0;
+		held = (flags & 16) != 0;
+		isPaused = (flags & 32) != 0;
+		
+		lockResets = words[i++];
+		lastClear = words[i++];
+		score = words[i++];
+		totalLines = words[i++];
+		piecesLocked = words[i++];
+		level = words[i++];
+		goal = words[i++];
+		
+		softDropTime = words[i++];
+		fallTime = words[i++];
+		lockTime = words[i++];
+		dasTime = words[i++];
+		amTime = words[i++];
+		stackHash = (long) words[i++] << 32 | words[i++] & 0xFFFFFFFFL;
+		for (int x = 0; x < BOARD_WIDTH; ++x) {
+			columnHeights[x] = words[i++];
+		}
+		
+		// Swap every tetromino for one of the saved name, recycling the ones there are now
+		int active = words[i++];
+		factory.freePiece(activeTetromino);
+		activeTetromino = factory.getPiece(tetrominoNames[active & 0xFF]).setRotationState(rotationStates[active >> 8]);
+		tetrominoPos.x = words[i++];
+		tetrominoPos.y = words[i++];
+		
+		factory.freePiece(ghostTetromino);
+		ghostTetromino = factory.getPiece(activeTetromino.getName()).setRotationState(activeTetromino.getRotationState());
+		ghostTetromino.setGhost(true);
+		ghostValid = false;
+		
+		if (heldTetromino != null) {
+			factory.freePiece(heldTetromino);
+		}
+		int heldName = words[i++];
+		heldTetromino = heldName >= 0 ? factory.getPiece(tetrominoNames[heldName]) : null;
+		
+		for (int q = 0; q < tetrominoQueue.size(); ++q) {
+			factory.freePiece(tetrominoQueue.get(q));
+		}
+		tetrominoQueue.clear();
+		int queueSize = words[i++];
+		for (int q = 0; q < queueSize; ++q) {
+			tetrominoQueue.add(factory.getPiece(tetrominoNames[words[i++]]));
+		}
+		
+		factory.readState(words, i);
+		gameGrid.set(snapshot.grid);
+	}
+	
+	@Override
+	public void recieveMessage(Message message) {
+		if (true) {
+			switch(message) {
+			case HARD_DROP:
+				hardDrop();
+				break;
+				
+			case ROTATE_RIGHT:
+				rotateClockwise();
+				break;
+				
+			case ROTATE_LEFT:
+				rotateCounterClockwise();
+				break;
+				
+			case HOLD:
+				holdPiece();
+				break;
+				
+			case PAUSE:
+				isPaused = true;
+				messageSystem.postMessage(Message.GAME_PAUSED);
+				break;
+				
+			case UNPAUSE:
+				isPaused = false;
+				messageSystem.postMessage(Message.GAME_RESUMED);
+				break;
+				
+			case RESTART_GAME:
+				setGameUp(1);
+				messageSystem.postMessage(Message.GAME_RESUMED);
+				break;
+				
+			case UNDO:
+				undo();
+				break;
+				
+			default:
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void recieveMessage(Message message, boolean extra) {
+		if (!loss) {
+			switch(message) {
+			case LEFT:
+				if (extra) {
+					moveLeft();
+				} 
+				left = extra;
+				break;
+				
+			case RIGHT:
+				if (extra) {
+					moveRight();
+				}
+				right = extra;
+				break;
+				
+			case SOFT_DROP:
+				down = extra;
+				fallTimer = 0;
+				
+			default:
+				break;
+			}
+		}
+	}
+	
+	private void saveUndo() {
+		if (undoSnapshots != null) {
+			undoNewest = (undoNewest + 1) % undoSnapshots.length;
+			saveState(undoSnapshots[undoNewest]);
+			undoCount = Math.min(undoCount + 1, undoSnapshots.length);
+		}
+	}
+	
+	// Puts the board back to when the previous tetromino spawned. The clock, pausing and the keys held down aren't part of a
+	// placement, so they stay as they are.
+	private void undo() {
+		if (!canUndo()) {
+			return;
+		}
+		
+		--undoCount;
+		undoNewest = (undoNewest + undoSnapshots.length - 1) % undoSnapshots.length;
+		
+		int now = tick;
+		boolean wasPaused = isPaused, wasLeft = left, wasRight = right, wasDown = down;
+		restoreState(undoSnapshots[undoNewest]);
+		tick = now;
+		isPaused = wasPaused;
+		left = wasLeft;
+		right = wasRight;
+		down = wasDown;
+	}
+	
+	private void hardDrop() {
+		if (!isPaused && !isLoss()) {
+			int landingY = getGhostY();
+			score += 2 * (tetrominoPos.y - landingY);
+			tetrominoPos.y = landingY;
+			
+			messageSystem.postMessage(MessageSystem.Message.HARD_DROPPED);
+			lockTetromino();
+		}
+	}
+
+	private void moveRight() {
+		if (!gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x + 1, tetrominoPos.y) && !isPaused  && !isLoss()) {
+			++tetrominoPos.x;
+			ghostValid = false;
+			
+			resetLock();
+			messageSystem.postMessage(MessageSystem.Message.SHIFTED);
+		}
+	}
+
+	private void moveLeft() {
+		if (!gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x - 1, tetrominoPos.y) && !isPaused && !isLoss()) {
+			--tetrominoPos.x;
+			ghostValid = false;
+			
+			resetLock();
+			messageSystem.postMessage(MessageSystem.Message.SHIFTED);
+		}
+	}
+	
+	private void holdPiece() {
+		if (!held && !isPaused  && !isLoss()) {
+			TetrominoNames activeName = activeTetromino.getName();
+			
+			if (heldTetromino == null) {
+				spawnTetromino();
+			} else {
+				spawnTetromino(heldTetromino);
+			}
+			
+			heldTetromino = factory.getPiece(activeName);
+			held = true;
+		}
+	}
+
+	private void rotateClockwise() {
+		if (!isPaused  && !isLoss()) {
+			RotationState currentState = activeTetromino.getRotationState();
+			RotationState rotatedState = currentState.clockwise();
+			KickTable kickTable = activeTetromino.kickTable;
+			
+			int kick = kickTable.findKick(gameGrid, activeTetromino.getGrid(rotatedState), tetrominoPos.x, tetrominoPos.y, currentState, rotatedState);
+	
+			// If a kick lets the piece fit, then apply it and be done
+			if (kick >= 0) {
+				tetrominoPos.x += kickTable.getKickX(currentState, rotatedState, kick);
+				tetrominoPos.y += kickTable.getKickY(currentState, rotatedState, kick);
+	
+				ghostValid = false;
+	
+				activeTetromino.rotateClockwise();
+				ghostTetromino.rotateClockwise();
+				resetLock();
+			}
+		}
+	}
+
+	private void rotateCounterClockwise() {
+		if (!isPaused  && !isLoss()) {
+			RotationState currentState = activeTetromino.getRotationState();
+			RotationState rotatedState = currentState.counterClockwise();
+			KickTable kickTable = activeTetromino.kickTable;
+			
+			int kick = kickTable.findKick(gameGrid, activeTetromino.getGrid(rotatedState), tetrominoPos.x, tetrominoPos.y, currentState, rotatedState);
+	
+			// If a kick lets the piece fit, then apply it and be done
+			if (kick >= 0) {
+				tetrominoPos.x += kickTable.getKickX(currentState, rotatedState, kick);
+				tetrominoPos.y += kickTable.getKickY(currentState, rotatedState, kick);
+	
+				ghostValid = false;
+	
+				activeTetromino.rotateCounterClockwise();
+				ghostTetromino.rotateCounterClockwise();
+				resetLock();
+			}
+		}
+	}
+	
+	private boolean lockTetromino() {
+		// Check for loss conditions
+		if (gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y) ||
+				spawnField.intersects(activeTetromino.blockGrid, tetrominoPos.x-1, tetrominoPos.y + BOARD_HEIGHT - 2 - BOARD_TOP_MARGIN) ) {
+			loss = true;
+			
+			messageSystem.postMessage(MessageSystem.Message.GAME_OVER);
+			return false;
+		} else {
+			// Check if the piece is above the visible portion of the playing field
+			// Set all game grid blocks to be the same as the active tetromino's
+			for (int x = 0; x < activeTetromino.blockGrid.getWidth(); ++x) {
+				for (int y = 0; y < activeTetromino.blockGrid.getHeight(); ++y) {
+					if (activeTetromino.blockGrid.getValue(x, y)) {
+						gameGrid.setValue(x + tetrominoPos.x, y + tetrominoPos.y, true, activeTetromino.blockGrid.getName(x, y));
+						raiseColumnHeight(x + tetrominoPos.x, y + tetrominoPos.y);
+					}
+				}
+			}
+			stackHash ^= Zobrist.hashBlocks(activeTetromino.blockGrid, tetrominoPos.x, tetrominoPos.y);
+			ghostValid = false;
+			
+			++piecesLocked;
+			totalLines += clearFullLines();
+			spawnTetromino();
+			
+			// Make it able for players to hold the piece again
+			held = false;
+			
+			// Make lock resets available again
+			lockResets = 0;
+			
+			saveUndo();
+			messageSystem.postMessage(Message.LOCKED_IN);
+			return true;
+		}
+	}
+
+	private void spawnTetromino() {
+		spawnTetromino(tetrominoQueue.remove(0));
+		tetrominoQueue.add(factory.getPiece());
+	}
+	
+	private void spawnTetromino(Tetromino t) {
+		// The replaced tetromino has either been locked into the grid or swapped into hold
+		if (activeTetromino != null) {
+			factory.freePiece(activeTetromino);
+		}
+		
+		activeTetromino = t;
+		ghostValid = false;
+
+		tetrominoPos.x = getSpawnX(activeTetromino);
+		tetrominoPos.y = getSpawnY(activeTetromino);
+		
+		if (ghostTetromino != null) {
+			factory.freePiece(ghostTetromino);
+		}
+		ghostTetromino = factory.getPiece(activeTetromino.getName());
+		ghostTetromino.setGhost(true);
+	}
+	
+	private int clearFullLines() {
+		// Only the rows the locked tetromino landed in can have been filled
+		int bottom = Math.max(1, tetrominoPos.y);
+		int top = Math.min(BOARD_HEIGHT - 2, tetrominoPos.y + activeTetromino.blockGrid.getHeight() - 1);
+		
+		int lines = 0;
+		int clearedRows = 0; // Bit y is set when row y is full
+		for (int y = bottom; y <= top; ++y) { // From the bottom of the board, to the top.
+			if (gameGrid.isRowFull(y)) { // The walls are always filled, so a full row has no holes
+				messageSystem.postMessage(Message.ROW_CLEARED, y-1);
+				clearedRows |= 1 << y;
+				++lines;
+			}
+		}
+		
+		if (lines > 0) {
+			clearLines(clearedRows);
+		}
+		
+		if (lines == 4 && lastClear == 4) {
+			score += scoreMultipliers[lines] * level * 1.5f;
+			messageSystem.postMessage(MessageSystem.Message.ROWS_SCORED, MessageSystem.Extra.BACKTOBACK_SCORED);
+			lastClear = lines;
+			
+			goal -= 12;
+		} else if (lines > 0) {
+			score += scoreMultipliers[lines] * level;
+			lastClear = lines;
+			
+			switch (lines) {
+			case 1:
+				messageSystem.postMessage(MessageSystem.Message.ROWS_SCORED, MessageSystem.Extra.SINGLE_SCORED);
+				goal -= 1;
+				break;
+				
+			case 2:
+				messageSystem.postMessage(MessageSystem.Message.ROWS_SCORED, MessageSystem.Extra.DOUBLE_SCORED);
+				goal -= 3;
+				break;
+				
+			case 3:
+				messageSystem.postMessage(MessageSystem.Message.ROWS_SCORED, MessageSystem.Extra.TRIPLE_SCORED);
+				goal -= 5;
+				break;
+				
+			case 4:
+				messageSystem.postMessage(MessageSystem.Message.ROWS_SCORED, MessageSystem.Extra.TETRIS_SCORED);
+				goal -= 8;
+				break;
+				
+			}
+		}
+		
+		if (goal <= 0) {
+			++level;
+			calculateConstantsFromLevel();
+			
+			messageSystem.postMessage(Message.LEVEL_UP);
+		}
+		
+		return lines;
+	}
+
+	// Removes every row set in clearedRows and moves the rows above them down in a single pass
+	private void clearLines(int clearedRows) {
+		ghostValid = false;
+		
+		int firstRow = Integer.numberOfTrailingZeros(clearedRows);
+		
+		// Every row from the first cleared one up moves, so swap their hashes out now and back in once they've moved
+		stackHash ^= Zobrist.hashRows(gameGrid, firstRow, BOARD_HEIGHT - 1);
+		
+		int row = firstRow;
+		for (int y = firstRow; y < BOARD_HEIGHT - 1; ++y) {
+			if ((clearedRows & (1 << y)) == 0) {
+				gameGrid.copyRow(y, row++);
+			}
+		}
+		
+		// Empty out the rows left at the top, keeping the walls
+		for (; row < BOARD_HEIGHT - 1; ++row) {
+			gameGrid.setRow(row, 1 | 1 << (BOARD_WIDTH - 1));
+		}
+		
+		stackHash ^= Zobrist.hashRows(gameGrid, firstRow, BOARD_HEIGHT - 1);
+		
+		// The walls never move, so only the playfield's columns come down
+		for (int x = 1; x < BOARD_WIDTH - 1; ++x) {
+			int topY = columnHeights[x] - 1;
+			
+			if ((clearedRows & (1 << topY)) != 0) {
+				columnHeights[x] = findColumnHeight(x, BOARD_HEIGHT - 2);
+			} else {
+				columnHeights[x] -= Integer.bitCount(clearedRows & ((1 << topY) - 1));
+			}
+		}
+	}
+	
+	// Lowest row the active tetromino can fall to from where it is
+	private int findLandingY() {
+		int[] bottomProfile = activeTetromino.getBottomProfile();
+		int landingY = Integer.MIN_VALUE;
+		
+		for (int x = 0; x < bottomProfile.length; ++x) {
+			if (bottomProfile[x] < 0) {
+				continue;
+			}
+			
+			int column = x + tetrominoPos.x;
+			int restingY = column >= 0 && column < BOARD_WIDTH ? columnHeights[column] - bottomProfile[x] : Integer.MAX_VALUE;
+			
+			if (restingY > tetrominoPos.y) {
+				// The piece is tucked below the surface of this column, so step it down instead
+				int y = tetrominoPos.y;
+				while(!gameGrid.intersects(activeTetromino.blockGrid, tetrominoPos.x, y-1)) {
+					--y;
+				}
+				return y;
+			}
+			
+			landingY = Math.max(landingY, restingY);
+		}
+		
+		return landingY;
+	}
+	
+	private void raiseColumnHeight(int x, int y) {
+		if (x >= 0 && x < BOARD_WIDTH && y < BOARD_HEIGHT - 1) {
+			columnHeights[x] = Math.max(columnHeights[x], y + 1);
+		}
+	}
+	
+	// Height of column x, looking down from row y
+	private int findColumnHeight(int x, int y) {
+		while (y >= 0 && !gameGrid.getValue(x, y)) {
+			--y;
+		}
+		return y + 1;
+	}
+	
+	private void calculateConstantsFromLevel() {		
+		goal = level * 5;
+		fallTime = secondsToTicks(1/(StrictMath.pow(1.3, level-1)));
+		softDropTime = secondsToTicks(0.068/StrictMath.pow(1.15, level-1));
+		lockTime = secondsToTicks(StrictMath.pow(0.75, (level - 1) + 5.52362) + 0.29585798816);
+		
+		dasTime = secondsToTicks(-0.011905*(level - 1) + 0.2666666);
+		amTime = secondsToTicks(-0.0001349*(level-1) + 0.0388888);
+	}
+	
+	// Rounds a duration to a whole number of ticks, at least one. StrictMath keeps this identical on every platform.
+	private static int secondsToTicks(double seconds) {
+		return (int) Math.max(1, StrictMath.round(seconds * TICKS_PER_SECOND));
+	}
+	
+	private void resetLock() {
+		if (getGhostY() == tetrominoPos.y) {
+			++lockResets;
+			
+			if (lockResets < MAX_LOCK_RESETS) {
+				lockTimer = 0;
+			}
+		}
+	}
+	
+	private void setGameUp(int level) {
+		// Hand every piece of the previous game back to the factory
+		if (heldTetromino != null) {
+			factory.freePiece(heldTetromino);
+		}
+		if (activeTetromino != null) {
+			factory.freePiece(activeTetromino);
+		}
+		if (ghostTetromino != null) {
+			factory.freePiece(ghostTetromino);
+		}
+		for (int i = 0; i < tetrominoQueue.size(); ++i) {
+			factory.freePiece(tetrominoQueue.get(i));
+		}
+		tetrominoQueue.clear();
+		
+		heldTetromino = null;
+		activeTetromino = null;
+		ghostTetromino = null;
+		
+		loss = false;
+		left = false;
+		right = false;
+		down = false;
+		isPaused = false;
+		
+		fallTimer = 0;
+		lockTimer = 0;
+		moveTimer = 0;
+		
+		lockResets = 0;
+		lastClear = 0;
+		score = 0;
+		totalLines = 0;
+		piecesLocked = 0;
+		
+		this.level = level;
+		calculateConstantsFromLevel();
+		
+		factory.reset();
+		
+		// Make game grid
+		gameGrid = new BlockGrid(BOARD_WIDTH, BOARD_HEIGHT);
+
+		for (int x = 0; x < BOARD_WIDTH; ++x) {
+			gameGrid.setValue(x, 0, true);
+			gameGrid.setValue(x, BOARD_HEIGHT - 1, true);
+		}
+
+		for (int y = 0; y < BOARD_HEIGHT; ++y) {
+			gameGrid.setValue(0, y, true);
+			gameGrid.setValue(BOARD_WIDTH - 1, y, true);
+		}
+		
+		for (int x = 0; x < BOARD_WIDTH; ++x) {
+			columnHeights[x] = findColumnHeight(x, BOARD_HEIGHT - 2);
+		}
+		stackHash = Zobrist.hashRows(gameGrid, 0, BOARD_HEIGHT);
+		
+		spawnField = new BlockGrid(BOARD_WIDTH-2, BOARD_TOP_MARGIN);
+		for (int x = 0; x < BOARD_WIDTH-2; ++x) {
+			for (int y = 0; y < BOARD_TOP_MARGIN; ++y) {
+				spawnField.setValue(x, y, true);
+			}
+		}
+		
+		for (int i = 0; i < QUEUE_LENGTH; ++i) {
+			tetrominoQueue.add(factory.getPiece());
+		}
+
+		spawnTetromino();
+		
+		undoCount = 0;
+		saveUndo();
+	}
+	
+}
@@ -0,0 +1,144 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+import com.anthonyha.tetris.PlacementSearch.Move;
+
+//Plays by asking a planner where each tetromino should go, and then steering the tetromino there along the shortest path
+//PlacementSearch finds, with the same commands a player sends.
+public class TetrisBot implements InputPolicy {
+
+	private final PlacementPlanner planner;
+
+	private PlacementSearch search;
+
+	// The tetromino that is being steered, and the placement it is being steered to
+	private Tetromino plannedTetromino;
+	private int plannedPiecesLocked;
+	private int target = -1;
+
+	// Path to the target, as the states the tetromino passes through and the moves between them
+	private int[] pathStates;
+	private Move[] pathMoves;
+	private int pathLength;
+	private int pathIndex;
+
+	private boolean softDropping;
+
+	public TetrisBot() {
+		this(new GreedyPlanner(new StackHeuristic()));
+	}
+
+	public TetrisBot(PlacementPlanner planner) {
+		this.planner = planner;
+	}
+
+	@Override
+	public void reset(long seed) {
+		plannedTetromino = null;
+		target = -1;
+		softDropping = false;
+	}
+
+	@Override
+	public void act(TetrisBoard board, MessageSystem messageSystem) {
+		if (board.isLoss() || board.isPaused()) {
+			return;
+		}
+
+		BlockGrid field = board.gameGrid;
+		if (search == null) {
+			search = new PlacementSearch(field.getWidth(), field.getHeight());
+			pathStates = new int[search.getStateCount() + 1];
+			pathMoves = new Move[pathStates.length];
+		}
+
+		Tetromino tetromino = board.activeTetromino;
+		if (tetromino != plannedTetromino || board.getPiecesLocked() != plannedPiecesLocked) {
+			plannedTetromino = tetromino;
+			plannedPiecesLocked = board.getPiecesLocked();
+
+			target = -1;
+			if (planner.plan(board)) {
+				messageSystem.postMessage(Message.HOLD);
+				return;
+			}
+
+			target = planner.getTarget();
+			if (target >= 0) {
+				search.search(field, tetromino, board.tetrominoPos.x, board.tetrominoPos.y, tetromino.getRotationState());
+				pathLength = search.getPath(target, pathStates, pathMoves);
+				pathIndex = 0;
+			}
+		}
+
+		if (target < 0) {
+			return;
+		}
+
+		// Pick up the path where the tetromino is now, or find a new path if it has left it
+		int current = search.getState(board.tetrominoPos.x, board.tetrominoPos.y, tetromino.getRotationState());
+		while (pathIndex < pathLength && pathStates[pathIndex] != current) {
+			++pathIndex;
+		}
+
+		if (pathIndex >= pathLength && current != target) {
+			search.search(field, tetromino, board.tetrominoPos.x, board.tetrominoPos.y, tetromino.getRotationState());
+			if (!search.isReached(target)) {
+				// Plan again from scratch on the next tick
+				plannedTetromino = null;
+				return;
+			}
+			pathLength = search.getPath(target, pathStates, pathMoves);
+			pathIndex = 0;
+		}
+
+		// Once only drops are left, hard drop straight onto the target
+		boolean onlyDrops = true;
+		for (int i = pathIndex; i < pathLength && onlyDrops; ++i) {
+			onlyDrops = pathMoves[i] == Move.DOWN;
+		}
+
+		Move move = onlyDrops ? null : pathMoves[pathIndex];
+		if (softDropping != (move == Move.DOWN)) {
+			softDropping = !softDropping;
+			messageSystem.postMessage(Message.SOFT_DROP, softDropping);
+		}
+
+		if (move == null) {
+			target = -1;
+			messageSystem.postMessage(Message.HARD_DROP);
+			return;
+		}
+
+		switch (move) {
+		case LEFT:
+			messageSystem.postMessage(Message.LEFT, true);
+			messageSystem.postMessage(Message.LEFT, false);
+			break;
+
+		case RIGHT:
+			messageSystem.postMessage(Message.RIGHT, true);
+			messageSystem.postMessage(Message.RIGHT, false);
+			break;
+
+		case ROTATE_RIGHT:
+			messageSystem.postMessage(Message.ROTATE_RIGHT);
+			break;
+
+		case ROTATE_LEFT:
+			messageSystem.postMessage(Message.ROTATE_LEFT);
+			break;
+
+		case DOWN:
+			// Soft dropping is already held, so wait for the tetromino to fall
+			break;
+		}
+	}
+
+	public static class Factory implements InputPolicy.Factory {
+		@Override
+		public InputPolicy create() {
+			return new TetrisBot();
+		}
+	}
+}
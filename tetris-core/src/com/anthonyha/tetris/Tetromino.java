@@ -0,0 +1,237 @@
+package com.anthonyha.tetris;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class Tetromino {
+
+	private RotationState rotationState;
+	private TetrominoNames name;
+	
+	public enum TetrominoNames {
+		I, O, T, S, Z, J, L, GHOST
+	}
+	
+	public static final Map<TetrominoNames, Vector2> spawnOffsets;
+	static {
+		spawnOffsets = new EnumMap<TetrominoNames, Vector2>(TetrominoNames.class);
+		spawnOffsets.put(TetrominoNames.I, new Vector2(0, 0));
+		spawnOffsets.put(TetrominoNames.O, new Vector2(0, -1));
+		spawnOffsets.put(TetrominoNames.T, new Vector2(0, -1));
+		spawnOffsets.put(TetrominoNames.S, new Vector2(0, -1));
+		spawnOffsets.put(TetrominoNames.Z, new Vector2(0, -1));
+		spawnOffsets.put(TetrominoNames.J, new Vector2(0, -1));
+		spawnOffsets.put(TetrominoNames.L, new Vector2(0, -1));
+	}
+	
+	public static final Map<TetrominoNames, Vector2> origins;
+	static {
+		origins = new EnumMap<TetrominoNames, Vector2>(TetrominoNames.class);
+		origins.put(TetrominoNames.I, new Vector2(1, 2));
+		origins.put(TetrominoNames.O, new Vector2(1, 1));
+		origins.put(TetrominoNames.T, new Vector2(0, 1));
+		origins.put(TetrominoNames.S, new Vector2(0, 1));
+		origins.put(TetrominoNames.Z, new Vector2(0, 1));
+		origins.put(TetrominoNames.J, new Vector2(0, 1));
+		origins.put(TetrominoNames.L, new Vector2(0, 1));
+	}
+	
+	public enum RotationState {
+		UP, RIGHT, DOWN, LEFT;
+
+		private static final RotationState[] states = values();
+
+		public RotationState clockwise() {
+			return states[(ordinal() + 1) % states.length];
+		}
+
+		public RotationState counterClockwise() {
+			return states[(ordinal() + states.length - 1) % states.length];
+		}
+	}
+
+	// Every rotation state of every tetromino, computed once and indexed by [name][rotation state].
+	// These grids are shared by all tetrominoes and must never be modified.
+	private static final BlockGrid[][] rotationGrids;
+	private static final BlockGrid[][] ghostRotationGrids;
+
+	// Lowest filled row of every column of every rotation state, or -1 for empty columns. Indexed by [name][rotation state][column].
+	private static final int[][][] bottomProfiles;
+	static {
+		int shapes = TetrominoNames.GHOST.ordinal();
+		int states = RotationState.values().length;
+
+		rotationGrids = new BlockGrid[shapes][states];
+		ghostRotationGrids = new BlockGrid[shapes][states];
+		bottomProfiles = new int[shapes][states][];
+
+		for (int i = 0; i < shapes; ++i) {
+			TetrominoNames name = TetrominoNames.values()[i];
+
+			rotationGrids[i][0] = createGrid(name, name);
+			ghostRotationGrids[i][0] = createGrid(name, TetrominoNames.GHOST);
+
+			for (int state = 1; state < states; ++state) {
+				rotationGrids[i][state] = rotateGridClockwise(rotationGrids[i][state - 1]);
+				ghostRotationGrids[i][state] = rotateGridClockwise(ghostRotationGrids[i][state - 1]);
+			}
+
+			for (int state = 0; state < states; ++state) {
+				bottomProfiles[i][state] = createBottomProfile(rotationGrids[i][state]);
+			}
+		}
+	}
+
+	public BlockGrid blockGrid;
+	public KickTable kickTable;
+
+	private BlockGrid[] grids;
+
+	public Tetromino(TetrominoNames name, KickTable kickTable) {
+		set(name, kickTable);
+	}
+
+	// Turns this tetromino into a new, upright piece of the given name
+	public void set(TetrominoNames name, KickTable kickTable) {
+		this.kickTable = kickTable;
+		this.name = name;
+
+		grids = rotationGrids[name.ordinal()];
+		rotationState = RotationState.UP;
+		blockGrid = grids[rotationState.ordinal()];
+	}
+
+	public Tetromino rotateClockwise() {
+		rotationState = rotationState.clockwise();
+		blockGrid = grids[rotationState.ordinal()];
+
+		return this;
+	}
+
+	public Tetromino rotateCounterClockwise() {
+		rotationState = rotationState.counterClockwise();
+		blockGrid = grids[rotationState.ordinal()];
+
+		return this;
+	}
+
+	public Tetromino setRotationState(RotationState state) {
+		rotationState = state;
+		blockGrid = grids[rotationState.ordinal()];
+
+		return this;
+	}
+
+	// Makes every block of this tetromino use the ghost name, or its own name again
+	public void setGhost(boolean ghost) {
+		grids = ghost ? ghostRotationGrids[name.ordinal()] : rotationGrids[name.ordinal()];
+		blockGrid = grids[rotationState.ordinal()];
+	}
+
+	// Retrieve the grid this tetromino has in the given rotation state, without rotating it
+	public BlockGrid getGrid(RotationState state) {
+		return grids[state.ordinal()];
+	}
+
+	// Retrieve the lowest filled row of each column in the current rotation state, -1 meaning the column is empty
+	public int[] getBottomProfile() {
+		return bottomProfiles[name.ordinal()][rotationState.ordinal()];
+	}
+
+	public RotationState getRotationState() {
+		return rotationState;
+	}
+	
+	public TetrominoNames getName() {
+		return name;
+	}
+
+	// Builds the spawn orientation of a tetromino, with every block named blockName
+	private static BlockGrid createGrid(TetrominoNames shape, TetrominoNames blockName) {
+		BlockGrid grid = null;
+
+		switch (shape) {
+		case I:
+			grid = new BlockGrid(5, 5, blockName);
+			grid.setValue(1, 2, true);
+			grid.setValue(2, 2, true);
+			grid.setValue(3, 2, true);
+			grid.setValue(4, 2, true);
+			break;
+		case O:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(1, 1, true);
+			grid.setValue(1, 2, true);
+			grid.setValue(2, 1, true);
+			grid.setValue(2, 2, true);
+			break;
+		case T:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(0, 1, true);
+			grid.setValue(1, 1, true);
+			grid.setValue(1, 2, true);
+			grid.setValue(2, 1, true);
+			break;
+		case S:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(0, 1, true);
+			grid.setValue(1, 1, true);
+			grid.setValue(1, 2, true);
+			grid.setValue(2, 2, true);
+			break;
+		case Z:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(0, 2, true);
+			grid.setValue(1, 1, true);
+			grid.setValue(1, 2, true);
+			grid.setValue(2, 1, true);
+			break;
+		case J:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(0, 1, true);
+			grid.setValue(0, 2, true);
+			grid.setValue(1, 1, true);
+			grid.setValue(2, 1, true);
+			break;
+		case L:
+			grid = new BlockGrid(3, 3, blockName);
+			grid.setValue(0, 1, true);
+			grid.setValue(1, 1, true);
+			grid.setValue(2, 1, true);
+			grid.setValue(2, 2, true);
+			break;
+		case GHOST:
+			break;
+		}
+
+		return grid;
+	}
+
+	private static int[] createBottomProfile(BlockGrid grid) {
+		int[] profile = new int[grid.getWidth()];
+
+		for (int x = 0; x < grid.getWidth(); ++x) {
+			profile[x] = -1;
+			for (int y = grid.getHeight() - 1; y >= 0; --y) {
+				if (grid.getValue(x, y)) {
+					profile[x] = y;
+				}
+			}
+		}
+
+		return profile;
+	}
+
+	private static BlockGrid rotateGridClockwise(BlockGrid grid) {
+		BlockGrid rotatedGrid = new BlockGrid(grid.getHeight(), grid.getWidth());
+
+		for (int x = 0; x < grid.getWidth(); ++x) {
+			for (int y = 0; y < grid.getHeight(); ++y) {
+				rotatedGrid.setValue(y, x, grid.getValue(grid.getWidth() - x - 1, y), grid.getName(grid.getWidth() - x - 1, y));
+			}
+		}
+
+		return rotatedGrid;
+	}
+
+}
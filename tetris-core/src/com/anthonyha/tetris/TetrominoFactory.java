@@ -5,7 +5,11 @@ import com.anthonyha.tetris.Tetromino.TetrominoNames;
 public interface TetrominoFactory {
 	public Tetromino getPiece();
 	public Tetromino getPiece(TetrominoNames tetrominoName);
+	public void freePiece(Tetromino tetromino);
 	public void setSeed(long seed);
 	public void reset();
 	
+	// Copy the factory's random state into words from offset on, and read it back. Both return the offset after the last word.
+	public int writeState(int[] words, int offset);
+	public int readState(int[] words, int offset);
 }
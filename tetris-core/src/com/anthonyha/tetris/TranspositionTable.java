@@ -0,0 +1,94 @@
+package com.anthonyha.tetris;
+
+//A fixed-size table of scores for board hashes, so a search can recognise a state it has already reached by a different order of moves.
+//The table never grows. Each hash maps to a bucket of two entries: the first keeps the deepest entry of the current search,
+//and the second always takes whatever the first won't. Entries from earlier searches are replaced first.
+//Threads may probe and store at the same time without locking. An entry is stored as its key XORed with its data next to the data,
+//so an entry torn by two threads writing at once no longer matches its key and reads as missing.
+public class TranspositionTable {
+
+	// Returned by probe when a hash has no entry
+	public static final long MISSING = -1;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+
+	private int generation = 1;
+
+	// Creates a table of 2^sizeBits buckets
+	public TranspositionTable(int sizeBits) {
+		keys = new long[2 << sizeBits];
+		data = new long[2 << sizeBits];
+		mask = (1 << sizeBits) - 1;
+	}
+
+	// Starts a new search. Entries stored before are still found, but are the first to be replaced.
+	public void newSearch() {
+		generation = (generation + 1) & 0xFFFF;
+		if (generation == 0) {
+			generation = 1;
+		}
+	}
+
+	// Retrieve the entry stored for a hash, or MISSING
+	public long probe(long hash) {
+		int i = bucket(hash);
+
+		for (int j = i; j < i + 2; ++j) {
+			long entry = data[j];
+			if ((keys[j] ^ entry) == hash && entry != 0) {
+				return entry;
+			}
+		}
+		return MISSING;
+	}
+
+	// Stores a score for a hash, found at the given depth of the current search
+	public void store(long hash, float score, int depth) {
+		int i = bucket(hash);
+		long entry = (long) generation << 40 | (long) (depth & 0xFF) << 32 | Float.floatToIntBits(score) & 0xFFFFFFFFL;
+
+		long first = data[i];
+		if (first == 0 || (keys[i] ^ first) == hash || getGeneration(first) != generation || getDepth(first) <= depth) {
+			keys[i] = hash ^ entry;
+			data[i] = entry;
+		} else {
+			keys[i + 1] = hash ^ entry;
+			data[i + 1] = entry;
+		}
+	}
+
+	// Check if an entry was stored by the current search
+	public boolean isCurrent(long entry) {
+		return entry != MISSING && getGeneration(entry) == generation;
+	}
+
+	// Empties the table
+	public void clear() {
+		for (int i = 0; i < data.length; ++i) {
+			keys[i] = 0;
+			data[i] = 0;
+		}
+	}
+
+	public int getCapacity() {
+		return data.length;
+	}
+
+	public static float getScore(long entry) {
+		return Float.intBitsToFloat((int) entry);
+	}
+
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	private static int getGeneration(long entry) {
+		return (int) (entry >>> 40) & 0xFFFF;
+	}
+
+	private int bucket(long hash) {
+		return ((int) (hash ^ (hash >>> 32)) & mask) << 1;
+	}
+}
@@ -0,0 +1,110 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Zobrist hashing of boards: every filled block, tetromino, position and hold state has a random 64 bit key,
+//and a board hashes to the XOR of the keys of everything on it. Adding or removing a block flips its key in or out,
+//so a hash can be updated with only the rows that changed.
+//The keys come from a fixed seed, so hashes are the same in every run and on every platform.
+public class Zobrist {
+
+	// Largest grid the keys cover. Rows are indexed by y * MAX_WIDTH + x.
+	public static final int MAX_WIDTH = 32;
+	public static final int MAX_HEIGHT = 64;
+
+	// Tetromino positions may hang this far outside of the grid
+	private static final int MARGIN = 4;
+	private static final int MAX_QUEUE = 8;
+
+	private static final int shapes = TetrominoNames.GHOST.ordinal();
+	private static final int states = RotationState.values().length;
+
+	private static final long[] blockKeys = new long[MAX_WIDTH * MAX_HEIGHT];
+	private static final long[] pieceKeys = new long[shapes * states];
+	private static final long[] xKeys = new long[MAX_WIDTH + 2 * MARGIN];
+	private static final long[] yKeys = new long[MAX_HEIGHT + 2 * MARGIN];
+	private static final long[] holdKeys = new long[shapes + 1];
+	private static final long[] queueKeys = new long[MAX_QUEUE * shapes];
+	private static final long canHoldKey;
+	static {
+		long seed = 0x5DEECE66DL;
+
+		for (int i = 0; i < blockKeys.length; ++i) {
+			blockKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < pieceKeys.length; ++i) {
+			pieceKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < xKeys.length; ++i) {
+			xKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < yKeys.length; ++i) {
+			yKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < holdKeys.length; ++i) {
+			holdKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < queueKeys.length; ++i) {
+			queueKeys[i] = mix(seed += 0x9E3779B97F4A7C15L);
+		}
+		canHoldKey = mix(seed += 0x9E3779B97F4A7C15L);
+	}
+
+	// Hash of the filled blocks of row y, given as a bit mask
+	public static long hashRow(int y, int row) {
+		long hash = 0;
+		int base = y * MAX_WIDTH;
+
+		while (row != 0) {
+			hash ^= blockKeys[base + Integer.numberOfTrailingZeros(row)];
+			row &= row - 1;
+		}
+		return hash;
+	}
+
+	// Hash of the filled blocks of rows from bottom up to but not including top
+	public static long hashRows(BlockGrid grid, int bottom, int top) {
+		long hash = 0;
+		for (int y = bottom; y < top; ++y) {
+			hash ^= hashRow(y, grid.getRow(y));
+		}
+		return hash;
+	}
+
+	// Hash of the blocks of a tetromino grid placed at (x,y). XORing it into the hash of a field the blocks don't overlap
+	// gives the hash of the field with the tetromino locked in.
+	public static long hashBlocks(BlockGrid grid, int x, int y) {
+		long hash = 0;
+		for (int row = 0; row < grid.getHeight(); ++row) {
+			int mask = grid.getRow(row);
+			if (mask != 0) {
+				hash ^= hashRow(y + row, x >= 0 ? mask << x : mask >>> -x);
+			}
+		}
+		return hash;
+	}
+
+	// Hash of a falling tetromino, its rotation state and position
+	public static long hashPiece(TetrominoNames name, RotationState state, int x, int y) {
+		return pieceKeys[name.ordinal() * states + state.ordinal()] ^ xKeys[x + MARGIN] ^ yKeys[y + MARGIN];
+	}
+
+	// Hash of the hold slot, held being null when it is empty
+	public static long hashHold(TetrominoNames held, boolean canHold) {
+		long hash = holdKeys[held != null ? held.ordinal() + 1 : 0];
+		return canHold ? hash ^ canHoldKey : hash;
+	}
+
+	// Hash of the i-th queued tetromino. Only the first few places of the queue have keys, and later ones hash to 0.
+	public static long hashQueued(int i, TetrominoNames name) {
+		return i < MAX_QUEUE ? queueKeys[i * shapes + name.ordinal()] : 0;
+	}
+
+	// SplitMix64's finalizer, which spreads every bit of its input over the whole output
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,327 @@
+package com.anthonyha.tetris;
+
+import java.util.Random;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Checks that BlockGrid's row bitmasks give the same answers as the grid of cells it replaced.
+//For every seed it builds a random field, with walls like the game's, in both, and then:
+// - tests every tetromino in every rotation for intersection at every position on and around the field, and far off it
+// - plays random placements, moving each tetromino left, right and down as far as it goes before locking it, and clearing
+//   full lines the way TetrisBoard does with the bitmasks and the way it used to, one cell at a time, with the cells
+//Half the fields are nearly full rows with one hole each, where each tetromino goes wherever clears the most lines, and
+//the field is filled again whenever it runs low, so most placements clear lines.
+//Exits with status 1 at the first answer or field that differs.
+public class BlockGridCheck {
+
+	private static final int WIDTH = 12;
+	private static final int HEIGHT = 24;
+	private static final int PLACEMENTS = 200;
+
+	private static final RotationState[] rotationStates = RotationState.values();
+	private static final TetrominoNames[] pieces = {
+		TetrominoNames.I, TetrominoNames.O, TetrominoNames.T, TetrominoNames.S, TetrominoNames.Z, TetrominoNames.J, TetrominoNames.L
+	};
+
+	//BlockGrid as it was before rows were bitmasks: a cell for every block, tested one at a time
+	private static class CellGrid {
+		final int width, height;
+		final boolean[][] states;
+		final TetrominoNames[][] names;
+
+		CellGrid(int width, int height) {
+			this.width = width;
+			this.height = height;
+			states = new boolean[width][height];
+			names = new TetrominoNames[width][height];
+			for (int x = 0; x < width; ++x) {
+				for (int y = 0; y < height; ++y) {
+					names[x][y] = TetrominoNames.GHOST;
+				}
+			}
+		}
+
+		// A copy of the cells of a BlockGrid
+		CellGrid(BlockGrid grid) {
+			this(grid.getWidth(), grid.getHeight());
+			for (int x = 0; x < width; ++x) {
+				for (int y = 0; y < height; ++y) {
+					states[x][y] = grid.getValue(x, y);
+					names[x][y] = grid.getName(x, y);
+				}
+			}
+		}
+
+		boolean getValue(int x, int y) {
+			if (x < 0 || y < 0 || x >= width || y >= height) {
+				return false;
+			}
+			return states[x][y];
+		}
+
+		void setValue(int x, int y, boolean value, TetrominoNames name) {
+			if (x >= 0 && y >= 0 && x < width && y < height) {
+				states[x][y] = value;
+				names[x][y] = name;
+			}
+		}
+
+		boolean intersects(CellGrid other, int relX, int relY) {
+			for (int x = 0; x < width; ++x) {
+				for (int y = 0; y < height; ++y) {
+					if (getValue(x, y) && other.getValue(x - relX, y - relY)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		// Clears full rows one at a time from the bottom, moving every block above each one down a row
+		int clearFullLines() {
+			int lines = 0;
+			for (int y = 1; y < height - 1; ++y) {
+				int blocksInALine = 0;
+				for (int x = 1; x < width - 1; ++x) {
+					if (getValue(x, y)) {
+						++blocksInALine;
+					} else {
+						break;
+					}
+				}
+
+				if (blocksInALine == width - 2) {
+					for (int row = y; row < height - 2; ++row) {
+						for (int x = 1; x < width - 1; ++x) {
+							setValue(x, row, states[x][row + 1], names[x][row + 1]);
+						}
+					}
+					for (int x = 1; x < width - 1; ++x) {
+						setValue(x, height - 2, false, names[x][height - 2]);
+					}
+					++lines;
+					--y;
+				}
+			}
+			return lines;
+		}
+	}
+
+	public static void main(String[] args) {
+		int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+		long probes = 0, placements = 0, lines = 0;
+		long startTime = System.nanoTime();
+		for (int seed = 0; seed < seeds; ++seed) {
+			Random random = new Random(seed);
+			BlockGrid field = new BlockGrid(WIDTH, HEIGHT);
+			CellGrid cells = new CellGrid(WIDTH, HEIGHT);
+			fill(field, cells, random, seed % 2 == 1);
+			compare(field, cells, "seed " + seed + " after filling");
+
+			probes += checkIntersections(field, cells, seed);
+
+			boolean nearlyFull = seed % 2 == 1;
+			for (int i = 0; i < PLACEMENTS; ++i) {
+				TetrominoNames name = pieces[random.nextInt(pieces.length)];
+				Tetromino tetromino = new Tetromino(name, RandomTetrominoFactory.getKickTable(name));
+				BlockGrid piece = tetromino.getGrid(rotationStates[random.nextInt(4)]);
+				int targetX = random.nextInt(WIDTH);
+				String where = "seed " + seed + " placement " + i;
+
+				if (nearlyFull) {
+					// Try every rotation and column on a copy, and keep the one that clears the most
+					int best = -1;
+					for (RotationState state : rotationStates) {
+						for (int tryX = 0; tryX < WIDTH; ++tryX) {
+							BlockGrid trial = new BlockGrid(WIDTH, HEIGHT);
+							trial.set(field);
+							int cleared = drop(trial, tetromino.getGrid(state), tryX);
+							if (cleared > best) {
+								best = cleared;
+								piece = tetromino.getGrid(state);
+								targetX = tryX;
+							}
+						}
+					}
+				}
+
+				int cleared = place(field, cells, piece, new CellGrid(piece), targetX, where);
+				if (cleared < 0 || (nearlyFull && field.getRow(4) == (1 | 1 << (WIDTH - 1)))) {
+					// Topped out or running low on rows to clear, so start over on a new field
+					fill(field, cells, random, nearlyFull);
+					compare(field, cells, where + " after filling again");
+					continue;
+				}
+				lines += cleared;
+				++placements;
+				compare(field, cells, where);
+			}
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+
+		System.out.printf("%d seeds: %d intersection probes, %d placements clearing %d lines all matched in %.2f s%n",
+				seeds, probes, placements, lines, seconds);
+	}
+
+	// Walls on both sides and the floor and ceiling, and random rows of blocks up to half the field, or nearly full rows
+	private static void fill(BlockGrid field, CellGrid cells, Random random, boolean nearlyFull) {
+		for (int x = 0; x < WIDTH; ++x) {
+			for (int y = 0; y < HEIGHT; ++y) {
+				boolean wall = x == 0 || x == WIDTH - 1 || y == 0 || y == HEIGHT - 1;
+				field.setValue(x, y, wall, TetrominoNames.GHOST);
+				cells.setValue(x, y, wall, TetrominoNames.GHOST);
+			}
+		}
+
+		int rows = nearlyFull ? HEIGHT / 2 : 1 + random.nextInt(HEIGHT / 2);
+		for (int y = 1; y <= rows; ++y) {
+			int hole = 1 + random.nextInt(WIDTH - 2);
+			for (int x = 1; x < WIDTH - 1; ++x) {
+				boolean value = nearlyFull ? x != hole : random.nextInt(3) > 0 && x != hole;
+				TetrominoNames name = pieces[random.nextInt(pieces.length)];
+				field.setValue(x, y, value, name);
+				cells.setValue(x, y, value, name);
+			}
+		}
+	}
+
+	// Tests every rotation of every tetromino for intersection at every position in and around the field, both ways round
+	private static long checkIntersections(BlockGrid field, CellGrid cells, int seed) {
+		long probes = 0;
+		for (TetrominoNames name : pieces) {
+			Tetromino tetromino = new Tetromino(name, RandomTetrominoFactory.getKickTable(name));
+			for (RotationState state : rotationStates) {
+				BlockGrid piece = tetromino.getGrid(state);
+				CellGrid pieceCells = new CellGrid(piece);
+
+				for (int x = -6; x <= WIDTH + 6; ++x) {
+					for (int y = -6; y <= HEIGHT + 6; ++y) {
+						check(field.intersects(piece, x, y), cells.intersects(pieceCells, x, y), "seed " + seed + " " + name + " " + state + " at " + x + "," + y);
+						check(piece.intersects(field, -x, -y), pieceCells.intersects(cells, -x, -y), "seed " + seed + " field against " + name + " " + state);
+						probes += 2;
+					}
+				}
+
+				// Far enough off the field that a shifted row mask would wrap around
+				for (int x = 30; x <= 40; ++x) {
+					check(field.intersects(piece, x, 5), cells.intersects(pieceCells, x, 5), "seed " + seed + " " + name + " far right at " + x);
+					check(field.intersects(piece, -x, 5), cells.intersects(pieceCells, -x, 5), "seed " + seed + " " + name + " far left at " + -x);
+					probes += 2;
+				}
+			}
+		}
+		return probes;
+	}
+
+	// Moves a tetromino from the top towards column targetX and then down as far as it goes in both grids, checking every move
+	// gives the same answer, then locks it and clears full lines. Returns the lines cleared, or -1 if it couldn't spawn.
+	private static int place(BlockGrid field, CellGrid cells, BlockGrid piece, CellGrid pieceCells, int targetX, String where) {
+		int x = WIDTH / 2 - 2;
+		int y = HEIGHT - 1 - piece.getHeight();
+
+		if (check(field.intersects(piece, x, y), cells.intersects(pieceCells, x, y), where + " spawning")) {
+			return -1;
+		}
+
+		int step = targetX < x ? -1 : 1;
+		while (x != targetX) {
+			boolean blocked = check(field.intersects(piece, x + step, y), cells.intersects(pieceCells, x + step, y), where + " moving to " + (x + step));
+			if (blocked) {
+				break;
+			}
+			x += step;
+		}
+
+		while (!check(field.intersects(piece, x, y - 1), cells.intersects(pieceCells, x, y - 1), where + " falling to " + (y - 1))) {
+			--y;
+		}
+
+		for (int px = 0; px < piece.getWidth(); ++px) {
+			for (int py = 0; py < piece.getHeight(); ++py) {
+				if (piece.getValue(px, py)) {
+					field.setValue(px + x, py + y, true, piece.getName(px, py));
+					cells.setValue(px + x, py + y, true, piece.getName(px, py));
+				}
+			}
+		}
+
+		int lines = clearFullLines(field);
+		check(lines, cells.clearFullLines(), where + " clearing lines");
+		return lines;
+	}
+
+	// Moves a tetromino like place does in one grid, without checking anything, and returns the lines it cleared or -1
+	private static int drop(BlockGrid field, BlockGrid piece, int targetX) {
+		int x = WIDTH / 2 - 2;
+		int y = HEIGHT - 1 - piece.getHeight();
+		if (field.intersects(piece, x, y)) {
+			return -1;
+		}
+
+		int step = targetX < x ? -1 : 1;
+		while (x != targetX && !field.intersects(piece, x + step, y)) {
+			x += step;
+		}
+		while (!field.intersects(piece, x, y - 1)) {
+			--y;
+		}
+
+		for (int px = 0; px < piece.getWidth(); ++px) {
+			for (int py = 0; py < piece.getHeight(); ++py) {
+				if (piece.getValue(px, py)) {
+					field.setValue(px + x, py + y, true);
+				}
+			}
+		}
+		return clearFullLines(field);
+	}
+
+	// Clears full rows with the bitmasks in one pass from the bottom, the way TetrisBoard.clearLines does
+	private static int clearFullLines(BlockGrid field) {
+		int row = 1;
+		for (int y = 1; y < HEIGHT - 1; ++y) {
+			if (!field.isRowFull(y)) {
+				field.copyRow(y, row++);
+			}
+		}
+		int lines = HEIGHT - 1 - row;
+		for (; row < HEIGHT - 1; ++row) {
+			field.setRow(row, 1 | 1 << (WIDTH - 1));
+		}
+		return lines;
+	}
+
+	private static boolean check(boolean value, boolean expected, String where) {
+		if (value != expected) {
+			fail(where + ": bitmasks said " + value + ", cells said " + expected);
+		}
+		return value;
+	}
+
+	private static void check(int value, int expected, String where) {
+		if (value != expected) {
+			fail(where + ": bitmasks gave " + value + ", cells gave " + expected);
+		}
+	}
+
+	// Every block and the name of every filled block must be the same
+	private static void compare(BlockGrid field, CellGrid cells, String where) {
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				if (field.getValue(x, y) != cells.getValue(x, y)) {
+					fail(where + ": block " + x + "," + y + " is " + field.getValue(x, y) + " with bitmasks and " + cells.getValue(x, y) + " with cells");
+				}
+				if (cells.getValue(x, y) && field.getName(x, y) != cells.names[x][y]) {
+					fail(where + ": block " + x + "," + y + " is named " + field.getName(x, y) + " with bitmasks and " + cells.names[x][y] + " with cells");
+				}
+			}
+		}
+	}
+
+	private static void fail(String failure) {
+		System.out.println("FAILED " + failure);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,132 @@
+package com.anthonyha.tetris;
+
+import java.util.Random;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Checks that EventRingBuffer's readers see every event exactly once and in order, on one thread, so every run is the same.
+//For every seed it makes a small ring and a few readers, some of them made after events have been published, and then takes
+//turns at random between publishing a burst of events and letting one reader read a few. The ring wraps around many times.
+//Before each read the check works out which event the reader must get, or that it must get none, from the number of events
+//published: a reader at most a ring behind gets the next one, and one further behind loses exactly the events that were
+//overwritten and goes on from the oldest one left. Half the readers read rarely, so they fall behind and lose events.
+//Exits with status 1 at the first event read out of turn or with the wrong contents.
+public class EventRingBufferCheck {
+
+	private static final int ROUNDS = 400;
+
+	private static final Message[] messages = Message.values();
+
+	//A reader and what it must read next
+	private static class CheckedReader {
+		final EventRingBuffer.Reader reader;
+		final boolean slow;
+		long expected;
+		long lost;
+		long read;
+
+		CheckedReader(EventRingBuffer ring, boolean slow) {
+			reader = ring.newReader();
+			this.slow = slow;
+			expected = ring.getPublished();
+		}
+	}
+
+	public static void main(String[] args) {
+		int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+		long published = 0, read = 0, lost = 0;
+		for (int seed = 0; seed < seeds; ++seed) {
+			Random random = new Random(seed);
+			EventRingBuffer ring = new EventRingBuffer(2 + random.nextInt(4));
+			int capacity = ring.getCapacity();
+
+			CheckedReader[] readers = new CheckedReader[1 + random.nextInt(4)];
+			int made = 0;
+			readers[made++] = new CheckedReader(ring, false);
+
+			for (int round = 0; round < ROUNDS; ++round) {
+				if (made < readers.length && random.nextInt(ROUNDS / readers.length) == 0) {
+					readers[made] = new CheckedReader(ring, made % 2 == 1);
+					++made;
+				}
+
+				// Publishing about as often as each reader reads, so the readers that aren't slow mostly keep up
+				if (random.nextInt(made + 1) == 0) {
+					int burst = 1 + random.nextInt(capacity);
+					for (int i = 0; i < burst; ++i) {
+						publish(ring, ring.getPublished());
+					}
+				} else {
+					CheckedReader reader = readers[random.nextInt(made)];
+					if (!reader.slow || random.nextInt(8) == 0) {
+						int count = 1 + random.nextInt(2 * capacity);
+						for (int i = 0; i < count; ++i) {
+							read(ring, reader, "seed " + seed + " round " + round);
+						}
+					}
+				}
+			}
+
+			// Every reader reads what is left
+			for (int i = 0; i < made; ++i) {
+				boolean more = true;
+				while (more) {
+					more = read(ring, readers[i], "seed " + seed + " at the end");
+				}
+				if (readers[i].reader.getNext() != ring.getPublished()) {
+					fail("seed " + seed + ": reader " + i + " stopped at " + readers[i].reader.getNext() + " of " + ring.getPublished());
+				}
+				read += readers[i].read;
+				lost += readers[i].lost;
+			}
+			published += ring.getPublished();
+		}
+
+		System.out.printf("%d seeds: %d events published, %d read and %d overwritten before they were read, all in order%n",
+				seeds, published, read, lost);
+	}
+
+	// Publishes the event numbered sequence, whose contents are all worked out from the number
+	private static void publish(EventRingBuffer ring, long sequence) {
+		ring.publish(messages[(int) (sequence % messages.length)], (int) (sequence % 4), (int) (sequence * 31), (int) (sequence / 3));
+	}
+
+	// Reads the reader's next event, checking it is the one it must be. Returns whether there was one.
+	private static boolean read(EventRingBuffer ring, CheckedReader checked, String where) {
+		long available = ring.getPublished();
+		if (available - checked.expected > ring.getCapacity()) {
+			checked.lost += available - ring.getCapacity() - checked.expected;
+			checked.expected = available - ring.getCapacity();
+		}
+
+		EventRingBuffer.Reader reader = checked.reader;
+		boolean found = reader.next();
+		if (found != checked.expected < available) {
+			fail(where + ": next() returned " + found + " with " + checked.expected + " read of " + available);
+		}
+		if (reader.getLost() != checked.lost) {
+			fail(where + ": reader lost " + reader.getLost() + " events, not " + checked.lost);
+		}
+		if (!found) {
+			return false;
+		}
+
+		long sequence = checked.expected;
+		if (reader.getNext() != sequence + 1
+				|| reader.getMessage() != messages[(int) (sequence % messages.length)]
+				|| reader.getKind() != (int) (sequence % 4)
+				|| reader.getInt() != (int) (sequence * 31)
+				|| reader.getTick() != (int) (sequence / 3)) {
+			fail(where + ": read the wrong event in place of " + sequence);
+		}
+		++checked.expected;
+		++checked.read;
+		return true;
+	}
+
+	private static void fail(String failure) {
+		System.out.println("FAILED " + failure);
+		System.exit(1);
+	}
+}
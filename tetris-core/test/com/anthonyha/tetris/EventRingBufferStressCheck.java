@@ -0,0 +1,100 @@
+package com.anthonyha.tetris;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Publishes events into an EventRingBuffer from one thread while several reader threads read them as fast as they can, and checks
+//that every reader got the events in order and lost none it didn't count. Each event carries its own number, split across the
+//extra and the tick, so a reader knows which event it got: the numbers it reads must go up, every gap between two of them must
+//be exactly what its lost count went up by, and what it read and lost must add up to every event published.
+//Runs twice: with a ring large enough for the readers to keep up, and with a ring of 16 events, where the publisher laps the
+//readers all the time and often rewrites a slot while a reader is in the middle of reading it.
+//Exits with status 1 if any event was read out of order, or went missing without being counted.
+public class EventRingBufferStressCheck {
+
+	private static final Message[] messages = Message.values();
+
+	private static class ReaderThread extends Thread {
+		private final EventRingBuffer.Reader reader;
+		private final long events;
+
+		long read;
+		String failure;
+
+		ReaderThread(EventRingBuffer ring, long events) {
+			this.reader = ring.newReader();
+			this.events = events;
+		}
+
+		@Override
+		public void run() {
+			long last = -1;
+			long lost = 0;
+			while (reader.getNext() < events) {
+				if (!reader.next()) {
+					Thread.yield();
+					continue;
+				}
+
+				long number = (long) reader.getTick() << 32 | reader.getInt() & 0xFFFFFFFFL;
+				if (number != reader.getNext() - 1 || reader.getMessage() != messages[(int) (number % messages.length)]
+						|| reader.getKind() != (int) (number % 4)) {
+					failure = "read event " + number + " as event " + (reader.getNext() - 1);
+					return;
+				}
+				if (number - last - 1 != reader.getLost() - lost) {
+					failure = "skipped from event " + last + " to " + number + " but counted " + (reader.getLost() - lost) + " lost";
+					return;
+				}
+				last = number;
+				lost = reader.getLost();
+				++read;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long events = args.length > 0 ? Long.parseLong(args[0]) : 20000000;
+		int readers = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		boolean failed = run(events, readers, 16, 1024);
+		failed |= run(events, readers, 4, 24);
+		System.exit(failed ? 1 : 0);
+	}
+
+	// Publishes events into a ring of 2^sizeBits, yielding after every burst of them if burst isn't 0. Returns true if it failed.
+	private static boolean run(long events, int readers, int sizeBits, int burst) throws InterruptedException {
+		EventRingBuffer ring = new EventRingBuffer(sizeBits);
+		ReaderThread[] threads = new ReaderThread[readers];
+		for (int i = 0; i < readers; ++i) {
+			threads[i] = new ReaderThread(ring, events);
+			threads[i].start();
+		}
+
+		long start = System.nanoTime();
+		for (long i = 0; i < events; ++i) {
+			ring.publish(messages[(int) (i % messages.length)], (int) (i % 4), (int) i, (int) (i >>> 32));
+			if (burst > 0 && i % burst == burst - 1) {
+				Thread.yield();
+			}
+		}
+		for (int i = 0; i < readers; ++i) {
+			threads[i].join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d events into %d slots, read by %d threads in %.2f s%n", events, ring.getCapacity(), readers, seconds);
+
+		boolean failed = false;
+		for (int i = 0; i < readers; ++i) {
+			ReaderThread thread = threads[i];
+			long lost = thread.reader.getLost();
+			if (thread.failure == null && thread.read + lost != events) {
+				thread.failure = "read " + thread.read + " and lost " + lost + " of " + events + " events";
+			}
+
+			System.out.printf("  reader %d: read %d, lost %d%s%n", i, thread.read, lost, thread.failure != null ? ", FAILED " + thread.failure : "");
+			failed |= thread.failure != null;
+		}
+		return failed;
+	}
+}
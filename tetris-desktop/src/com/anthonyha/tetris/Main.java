@@ -11,7 +11,7 @@ public class Main {
 		cfg.width = 1280;
 		cfg.height = 720;
 		
-		new LwjglApplication(new Tetris(), cfg);
+		new LwjglApplication(new Tetris(new ManagementMemoryProbe()), cfg);
 		
 	}
 }
@@ -0,0 +1,40 @@
+package com.anthonyha.tetris;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+//Reads the JVM's collector beans, which count every collection and the time spent on them
+public class ManagementMemoryProbe implements MemoryProbe {
+	
+	private final List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+	
+	@Override
+	public long getHeapUsed() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	@Override
+	public long getHeapMax() {
+		return Runtime.getRuntime().maxMemory();
+	}
+	
+	@Override
+	public long getGcCount() {
+		long count = 0;
+		for (int i = 0; i < beans.size(); ++i) {
+			count += Math.max(0, beans.get(i).getCollectionCount());
+		}
+		return count;
+	}
+	
+	@Override
+	public long getGcTime() {
+		long time = 0;
+		for (int i = 0; i < beans.size(); ++i) {
+			time += Math.max(0, beans.get(i).getCollectionTime());
+		}
+		return time;
+	}
+}
@@ -0,0 +1,448 @@
+package com.anthonyha.tetris;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Keeps the results of every benchmark run in an append-only history file, keyed by the commit that was measured, and checks
+//new runs against the results of a chosen commit so a change can't make the game slower without anyone noticing.
+//Reads the JSON that TetrisBenchmarks writes. Scores are kept as operations per second whatever unit JMH measured them in,
+//together with JMH's 99.9% confidence interval and, when the GC profiler ran, the bytes allocated per operation.
+//
+//A benchmark has regressed when it got slower by more than the threshold and its confidence interval no longer overlaps the
+//baseline's, or when it allocates more than the threshold more per operation. A benchmark the baseline has that the new run
+//doesn't is missing. compare exits with 1 if any benchmark has regressed or is missing.
+public class BenchmarkHistory {
+
+	public static final String DEFAULT_HISTORY = "benchmark-history.tsv";
+	public static final double DEFAULT_THRESHOLD = 5; // Percent
+
+	// Allocation measured per operation wobbles by a fraction of a byte even for code that allocates nothing
+	private static final double ALLOCATION_SLACK = 1;
+
+	//One benchmark's result. Benchmarks measured with parameters get one for each combination, with the parameters in the name.
+	public static class Result {
+		public final String name;
+		public final double score; // Operations per second
+		public final double low, high; // Confidence interval of the score, NaN if JMH didn't measure enough to have one
+		public final double bytesPerOp; // NaN if the GC profiler didn't run
+
+		public Result(String name, double score, double low, double high, double bytesPerOp) {
+			this.name = name;
+			this.score = score;
+			this.low = low;
+			this.high = high;
+			this.bytesPerOp = bytesPerOp;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("record")) {
+			List<Result> results = readResults(new File(args[1]));
+			File history = new File(args.length > 3 ? args[3] : DEFAULT_HISTORY);
+
+			append(history, args[2], results);
+			printTable(results, new LinkedHashMap<String, Result>(), new ArrayList<Result>(), DEFAULT_THRESHOLD);
+			System.out.printf("Recorded %d results for %s in %s%n", results.size(), args[2], history);
+
+		} else if (args.length >= 3 && args[0].equals("compare")) {
+			List<Result> results = readResults(new File(args[1]));
+			double threshold = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_THRESHOLD;
+			File history = new File(args.length > 4 ? args[4] : DEFAULT_HISTORY);
+
+			Map<String, Result> baseline;
+			try {
+				baseline = readHistory(history, args[2]);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+				return;
+			}
+			if (baseline.isEmpty()) {
+				System.err.println("No results for " + args[2] + " in " + history);
+				System.exit(1);
+			}
+
+			List<Result> missing = findMissing(results, baseline);
+			int regressed = printTable(results, baseline, missing, threshold);
+			System.out.printf("%d of %d benchmarks regressed by more than %.1f%% against %s, and %d of its %d are missing%n",
+					regressed, results.size(), threshold, args[2], missing.size(), baseline.size());
+			System.exit(regressed > 0 || !missing.isEmpty() ? 1 : 0);
+
+		} else {
+			System.err.println("Usage: BenchmarkHistory record <results.json> <commit> [history file]");
+			System.err.println("       BenchmarkHistory compare <results.json> <baseline commit> [threshold percent] [history file]");
+			System.exit(1);
+		}
+	}
+
+	// Read the results JMH wrote as JSON, besides any auxiliary counters measured as rates, such as GameBenchmark's pieces
+	public static List<Result> readResults(File file) throws IOException {
+		List<Result> results = new ArrayList<Result>();
+
+		for (Object entry : (List<?>) new JsonParser(readFile(file)).parse()) {
+			Map<?, ?> benchmark = (Map<?, ?>) entry;
+			String name = (String) benchmark.get("benchmark");
+			name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+
+			// Parameters in a fixed order, so every run names a result the same way
+			String params = "";
+			Map<?, ?> paramMap = (Map<?, ?>) benchmark.get("params");
+			if (paramMap != null) {
+				for (Map.Entry<?, ?> param : new TreeMap<Object, Object>(paramMap).entrySet()) {
+					params += " " + param.getKey() + "=" + param.getValue();
+				}
+			}
+
+			double bytesPerOp = Double.NaN;
+			List<Result> counters = new ArrayList<Result>();
+			Map<?, ?> secondaryMetrics = (Map<?, ?>) benchmark.get("secondaryMetrics");
+			if (secondaryMetrics != null) {
+				for (Map.Entry<?, ?> metric : secondaryMetrics.entrySet()) {
+					String metricName = (String) metric.getKey();
+					if (metricName.endsWith("gc.alloc.rate.norm")) {
+						bytesPerOp = toDouble(((Map<?, ?>) metric.getValue()).get("score"));
+					} else if (!metricName.contains("gc.") && isRate((Map<?, ?>) metric.getValue())) {
+						counters.add(toResult(name + ":" + metricName + params, (Map<?, ?>) metric.getValue(), Double.NaN));
+					}
+				}
+			}
+
+			results.add(toResult(name + params, (Map<?, ?>) benchmark.get("primaryMetric"), bytesPerOp));
+			results.addAll(counters);
+		}
+		return results;
+	}
+
+	// Add a run's results to the end of the history, writing the column names first if the history is new
+	public static void append(File history, String commit, List<Result> results) throws IOException {
+		boolean exists = history.exists();
+		String time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+
+		Writer out = new OutputStreamWriter(new FileOutputStream(history, true), "UTF-8");
+		try {
+			if (!exists) {
+				out.write("# commit\ttime\tbenchmark\tops/s\tlow\thigh\tbytes/op\n");
+			}
+			for (Result result : results) {
+				out.write(commit + "\t" + time + "\t" + result.name + "\t" + result.score + "\t" + result.low + "\t" + result.high + "\t"
+						+ result.bytesPerOp + "\n");
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	// Retrieve the results recorded for a commit, by name. A commit can be given by any prefix of the name it was recorded
+	// under, and a benchmark measured more than once for it gets its latest result. Throws IllegalArgumentException if the
+	// prefix starts more than one recorded commit and none of them is exactly it.
+	public static Map<String, Result> readHistory(File history, String commit) throws IOException {
+		Map<String, Map<String, Result>> matches = new LinkedHashMap<String, Map<String, Result>>();
+		if (!history.exists()) {
+			return new LinkedHashMap<String, Result>();
+		}
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(history), "UTF-8"));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] columns = line.split("\t");
+				if (!columns[0].startsWith(commit)) {
+					continue;
+				}
+
+				Map<String, Result> results = matches.get(columns[0]);
+				if (results == null) {
+					results = new LinkedHashMap<String, Result>();
+					matches.put(columns[0], results);
+				}
+				results.put(columns[2], new Result(columns[2], Double.parseDouble(columns[3]), Double.parseDouble(columns[4]),
+						Double.parseDouble(columns[5]), Double.parseDouble(columns[6])));
+			}
+		} finally {
+			in.close();
+		}
+
+		if (matches.containsKey(commit)) {
+			return matches.get(commit);
+		} else if (matches.size() > 1) {
+			throw new IllegalArgumentException(commit + " is ambiguous, it starts " + matches.keySet());
+		}
+		return matches.isEmpty() ? new LinkedHashMap<String, Result>() : matches.values().iterator().next();
+	}
+
+	// Print every result beside its baseline, if it has one, then the baseline's missing results, and return how many regressed
+	private static int printTable(List<Result> results, Map<String, Result> baseline, List<Result> missing, double threshold) {
+		int width = "benchmark".length();
+		for (Result result : results) {
+			width = Math.max(width, result.name.length());
+		}
+		for (Result base : missing) {
+			width = Math.max(width, base.name.length());
+		}
+
+		String format = "%-" + width + "s %10s %10s %7s %8s %9s %9s  %s%n";
+		System.out.printf(format, "benchmark", "base op/s", "op/s", "error", "change", "base B/op", "B/op", "");
+
+		int regressed = 0;
+		for (Result result : results) {
+			Result base = baseline.get(result.name);
+			String verdict = "";
+			String change = "";
+
+			if (base != null) {
+				double percent = (result.score - base.score) / base.score * 100;
+				change = String.format("%+.1f%%", percent);
+
+				// Without intervals to compare, the threshold alone decides
+				boolean slower = Double.isNaN(result.high) || Double.isNaN(base.low) || result.high < base.low;
+				boolean faster = Double.isNaN(result.low) || Double.isNaN(base.high) || result.low > base.high;
+				boolean allocates = result.bytesPerOp > base.bytesPerOp * (1 + threshold / 100) + ALLOCATION_SLACK;
+
+				if ((percent < -threshold && slower) || allocates) {
+					verdict = allocates ? "REGRESSED (allocates more)" : "REGRESSED";
+					++regressed;
+				} else if (percent > threshold && faster) {
+					verdict = "faster";
+				}
+			} else if (!baseline.isEmpty()) {
+				verdict = "new";
+			}
+
+			String error = Double.isNaN(result.high) ? "" : String.format("+-%.1f%%", (result.high - result.low) / 2 / result.score * 100);
+			System.out.printf(format, result.name, base != null ? formatRate(base.score) : "", formatRate(result.score), error, change,
+					base != null ? formatBytes(base.bytesPerOp) : "", formatBytes(result.bytesPerOp), verdict);
+		}
+
+		for (Result base : missing) {
+			System.out.printf(format, base.name, formatRate(base.score), "", "", "", formatBytes(base.bytesPerOp), "", "MISSING");
+		}
+		return regressed;
+	}
+
+	// Retrieve the baseline's results that the new run has none for
+	private static List<Result> findMissing(List<Result> results, Map<String, Result> baseline) {
+		Map<String, Result> missing = new LinkedHashMap<String, Result>(baseline);
+		for (Result result : results) {
+			missing.remove(result.name);
+		}
+		return new ArrayList<Result>(missing.values());
+	}
+
+	private static Result toResult(String name, Map<?, ?> metric, double bytesPerOp) {
+		String unit = (String) metric.get("scoreUnit");
+		double score = toDouble(metric.get("score"));
+		double low = Double.NaN, high = Double.NaN;
+
+		List<?> confidence = (List<?>) metric.get("scoreConfidence");
+		if (confidence != null && confidence.size() == 2) {
+			low = toDouble(confidence.get(0));
+			high = toDouble(confidence.get(1));
+		}
+
+		int slash = unit.indexOf('/');
+		if (unit.startsWith("ops/")) {
+			double seconds = seconds(unit.substring(slash + 1));
+			return new Result(name, score / seconds, low / seconds, high / seconds, bytesPerOp);
+		} else if (unit.endsWith("/op")) {
+			// Time per operation turns the interval around
+			double seconds = seconds(unit.substring(0, slash));
+			return new Result(name, 1 / (score * seconds), 1 / (high * seconds), 1 / (low * seconds), bytesPerOp);
+		}
+		throw new IllegalArgumentException("Unknown unit " + unit + " for " + name);
+	}
+
+	private static boolean isRate(Map<?, ?> metric) {
+		return String.valueOf(metric.get("scoreUnit")).startsWith("ops/");
+	}
+
+	// Seconds in one of the time units JMH writes
+	private static double seconds(String unit) {
+		if (unit.equals("ns")) {
+			return 1e-9;
+		} else if (unit.equals("us")) {
+			return 1e-6;
+		} else if (unit.equals("ms")) {
+			return 1e-3;
+		} else if (unit.equals("s")) {
+			return 1;
+		} else if (unit.equals("min")) {
+			return 60;
+		}
+		throw new IllegalArgumentException("Unknown time unit " + unit);
+	}
+
+	// JMH writes numbers it couldn't measure as the string "NaN"
+	private static double toDouble(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+	}
+
+	private static String formatRate(double rate) {
+		if (rate >= 1e9) {
+			return String.format("%.2fG", rate / 1e9);
+		} else if (rate >= 1e6) {
+			return String.format("%.2fM", rate / 1e6);
+		} else if (rate >= 1e3) {
+			return String.format("%.2fk", rate / 1e3);
+		}
+		return String.format("%.2f", rate);
+	}
+
+	private static String formatBytes(double bytes) {
+		return Double.isNaN(bytes) ? "" : String.format("%.1f", bytes);
+	}
+
+	private static String readFile(File file) throws IOException {
+		StringBuilder text = new StringBuilder();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				text.append(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return text.toString();
+	}
+
+	//Just enough of a JSON parser for JMH's results: objects become LinkedHashMaps, arrays ArrayLists, and numbers Doubles
+	private static class JsonParser {
+		private final String text;
+		private int position;
+
+		JsonParser(String text) {
+			this.text = text;
+		}
+
+		Object parse() {
+			skipWhitespace();
+			char c = text.charAt(position);
+
+			if (c == '{') {
+				Map<String, Object> object = new LinkedHashMap<String, Object>();
+				++position;
+				if (!consume('}')) {
+					do {
+						skipWhitespace();
+						String key = (String) parse();
+						expect(':');
+						object.put(key, parse());
+					} while (consume(','));
+					expect('}');
+				}
+				return object;
+
+			} else if (c == '[') {
+				List<Object> array = new ArrayList<Object>();
+				++position;
+				if (!consume(']')) {
+					do {
+						array.add(parse());
+					} while (consume(','));
+					expect(']');
+				}
+				return array;
+
+			} else if (c == '"') {
+				return parseString();
+
+			} else if (text.startsWith("true", position)) {
+				position += 4;
+				return Boolean.TRUE;
+			} else if (text.startsWith("false", position)) {
+				position += 5;
+				return Boolean.FALSE;
+			} else if (text.startsWith("null", position)) {
+				position += 4;
+				return null;
+			}
+
+			int start = position;
+			while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+				++position;
+			}
+			if (start == position) {
+				throw new IllegalArgumentException("Unexpected '" + c + "' at " + position);
+			}
+			return Double.valueOf(text.substring(start, position));
+		}
+
+		private String parseString() {
+			StringBuilder string = new StringBuilder();
+			++position;
+			while (true) {
+				char c = text.charAt(position++);
+				if (c == '"') {
+					return string.toString();
+				} else if (c != '\\') {
+					string.append(c);
+					continue;
+				}
+
+				c = text.charAt(position++);
+				switch (c) {
+				case 'n':
+					string.append('\n');
+					break;
+				case 't':
+					string.append('\t');
+					break;
+				case 'r':
+					string.append('\r');
+					break;
+				case 'b':
+					string.append('\b');
+					break;
+				case 'f':
+					string.append('\f');
+					break;
+				case 'u':
+					string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					string.append(c);
+				}
+			}
+		}
+
+		private void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				++position;
+			}
+		}
+
+		private boolean consume(char c) {
+			skipWhitespace();
+			if (position < text.length() && text.charAt(position) == c) {
+				++position;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(char c) {
+			if (!consume(c)) {
+				throw new IllegalArgumentException("Expected '" + c + "' at " + position);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.anthonyha.tetris;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.anthonyha.tetris.Tetromino.RotationState;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Tests tetrominoes against each kind of stack with BlockGrid.intersects, the check behind every move, rotation, fall and landing.
+//Every call tests one of a fixed set of tetrominoes, rotations and positions spread over the whole board, so about as many
+//hit the stack as miss it, and the branch predictor can't learn the answers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BlockGridBenchmark {
+
+	private static final int PROBES = 1024;
+	private static final long SEED = 1;
+
+	@Param({BoardFixtures.EMPTY, BoardFixtures.HALF, BoardFixtures.GARBAGE})
+	public String stack;
+
+	private BlockGrid field;
+	private BlockGrid[] grids = new BlockGrid[PROBES];
+	private int[] xs = new int[PROBES];
+	private int[] ys = new int[PROBES];
+
+	@Setup
+	public void setUp() {
+		field = BoardFixtures.create(stack, SEED, new MessageSystem()).gameGrid;
+
+		Random random = new Random(SEED);
+		TetrominoNames[] sequence = BoardFixtures.pieceSequence(PROBES, SEED);
+		RotationState[] rotationStates = RotationState.values();
+		for (int i = 0; i < PROBES; ++i) {
+			Tetromino tetromino = new Tetromino(sequence[i], RandomTetrominoFactory.getKickTable(sequence[i]));
+			grids[i] = tetromino.getGrid(rotationStates[random.nextInt(rotationStates.length)]);
+			xs[i] = random.nextInt(field.getWidth()) - 1;
+			ys[i] = random.nextInt(field.getHeight() - 2);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PROBES)
+	public int intersects() {
+		int hits = 0;
+		for (int i = 0; i < PROBES; ++i) {
+			if (field.intersects(grids[i], xs[i], ys[i])) {
+				++hits;
+			}
+		}
+		return hits;
+	}
+}
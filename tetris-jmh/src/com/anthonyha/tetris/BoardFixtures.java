@@ -0,0 +1,135 @@
+package com.anthonyha.tetris;
+
+import java.util.Random;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Boards for the benchmarks to measure on, built the same way every time from a seed. There are three kinds of stack:
+// empty - nothing but the walls
+// half - ten rows, each missing two to five blocks, so that none are full
+// garbage - fourteen rows of garbage with one hole each, the hole moving to another column now and then like in a versus game
+//Rows are given as masks of the ten playfield columns, bit 0 being the leftmost, and go from the bottom of the stack up.
+public class BoardFixtures {
+
+	public static final String EMPTY = "empty";
+	public static final String HALF = "half";
+	public static final String GARBAGE = "garbage";
+
+	public static final int WIDTH = 10;
+	public static final int FULL_ROW = (1 << WIDTH) - 1;
+
+	// Rows of a four line well, which a tetris-ready board has on top of its stack
+	public static final int WELL_DEPTH = 4;
+
+	// Every tetromino, in a fixed order
+	public static final TetrominoNames[] pieces = {
+		TetrominoNames.I, TetrominoNames.O, TetrominoNames.T, TetrominoNames.S, TetrominoNames.Z, TetrominoNames.J, TetrominoNames.L
+	};
+
+	// Rows of the given kind of stack, from the bottom up
+	public static int[] stackRows(String stack, long seed) {
+		Random random = new Random(seed);
+
+		if (stack.equals(EMPTY)) {
+			return new int[0];
+
+		} else if (stack.equals(HALF)) {
+			int[] rows = new int[10];
+			for (int y = 0; y < rows.length; ++y) {
+				int row = FULL_ROW;
+				int holes = 2 + random.nextInt(4);
+				while (Integer.bitCount(row) > WIDTH - holes) {
+					row &= ~(1 << random.nextInt(WIDTH));
+				}
+				rows[y] = row;
+			}
+			return rows;
+
+		} else if (stack.equals(GARBAGE)) {
+			int[] rows = new int[14];
+			int hole = random.nextInt(WIDTH);
+			for (int y = 0; y < rows.length; ++y) {
+				if (random.nextInt(10) < 3) {
+					hole = random.nextInt(WIDTH);
+				}
+				rows[y] = FULL_ROW & ~(1 << hole);
+			}
+			return rows;
+		}
+
+		throw new IllegalArgumentException("Unknown stack: " + stack);
+	}
+
+	// A board with the given kind of stack, and the tetromino it spawned with still at the top
+	public static TetrisBoard create(String stack, long seed, MessageSystem messageSystem) {
+		TetrisBoard board = new TetrisBoard(seed, 1, messageSystem);
+		raise(board, stackRows(stack, seed));
+		return board;
+	}
+
+	// A board with the given kind of stack, a well down one column on top of it, and an I tetromino standing upright over the well,
+	// so hard dropping it clears four lines. Boards are created from seed on until one starts with an I.
+	public static TetrisBoard createTetrisReady(String stack, long seed, MessageSystem messageSystem) {
+		while (new TetrisBoard(seed, 1, new MessageSystem()).activeTetromino.getName() != TetrominoNames.I) {
+			++seed;
+		}
+		TetrisBoard board = new TetrisBoard(seed, 1, messageSystem);
+		messageSystem.postMessage(Message.ROTATE_RIGHT);
+
+		// Column the upright I is in, not counting the wall
+		BlockGrid grid = board.activeTetromino.blockGrid;
+		int mask = 0;
+		for (int y = 0; y < grid.getHeight(); ++y) {
+			mask |= grid.getRow(y);
+		}
+		int well = board.tetrominoPos.x + Integer.numberOfTrailingZeros(mask) - 1;
+
+		int[] stackRows = stackRows(stack, seed);
+		int[] rows = new int[stackRows.length + WELL_DEPTH];
+		System.arraycopy(stackRows, 0, rows, 0, stackRows.length);
+		for (int y = stackRows.length; y < rows.length; ++y) {
+			rows[y] = FULL_ROW & ~(1 << well);
+		}
+
+		// The I has to land on the stack rather than fall through a hole into it, without the row it lands on being full
+		if (stackRows.length > 0) {
+			int top = stackRows.length - 1;
+			rows[top] |= 1 << well;
+			if (rows[top] == FULL_ROW) {
+				rows[top] &= ~(1 << (well + 1) % WIDTH);
+			}
+		}
+
+		raise(board, rows);
+		return board;
+	}
+
+	// Sequence of tetrominoes that repeats every seven, in a different order each time like the randomizer's bags
+	public static TetrominoNames[] pieceSequence(int length, long seed) {
+		Random random = new Random(seed);
+		TetrominoNames[] sequence = new TetrominoNames[length];
+		TetrominoNames[] bag = pieces.clone();
+
+		for (int i = 0; i < length; ++i) {
+			int inBag = i % bag.length;
+			if (inBag == 0) {
+				for (int j = bag.length - 1; j > 0; --j) {
+					int k = random.nextInt(j + 1);
+					TetrominoNames swap = bag[j];
+					bag[j] = bag[k];
+					bag[k] = swap;
+				}
+			}
+			sequence[i] = bag[inBag];
+		}
+		return sequence;
+	}
+
+	// Raising the stack pushes in from the bottom, so the top row goes in first
+	private static void raise(TetrisBoard board, int[] rows) {
+		for (int y = rows.length - 1; y >= 0; --y) {
+			board.raiseStack(rows[y]);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//One thread publishes into an EventRingBuffer while three others read from it, all at once in one group, so publish is
+//measured with readers going and read counts every poll, including the ones that found nothing new. Each reader also counts
+//the events it read and the ones overwritten before it got to them. That the readers get the events in order is checked by
+//EventRingBufferCheck and EventRingBufferStressCheck, not here.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventRingBufferBenchmark {
+
+	private static final Message[] messages = Message.values();
+
+	@Param({"10", "16"})
+	public int sizeBits;
+
+	private EventRingBuffer ring;
+	private long sequence;
+
+	//A reader of the group's ring, one for each reading thread
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class ReaderState {
+		public long read;
+		public long lost;
+
+		private EventRingBuffer.Reader reader;
+
+		@Setup
+		public void setUp(EventRingBufferBenchmark benchmark) {
+			reader = benchmark.ring.newReader();
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		ring = new EventRingBuffer(sizeBits);
+	}
+
+	// Each event carries its own number, split across the extra and the tick
+	@Benchmark
+	@Group("ring")
+	@GroupThreads(1)
+	public void publish() {
+		ring.publish(messages[(int) (sequence % messages.length)], EventRingBuffer.INT_EXTRA, (int) sequence, (int) (sequence >>> 32));
+		++sequence;
+	}
+
+	@Benchmark
+	@Group("ring")
+	@GroupThreads(3)
+	public int read(ReaderState state) {
+		EventRingBuffer.Reader reader = state.reader;
+		long lost = reader.getLost();
+		if (!reader.next()) {
+			return 0;
+		}
+
+		++state.read;
+		state.lost += reader.getLost() - lost;
+		return reader.getInt();
+	}
+}
@@ -0,0 +1,64 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+//Plays whole seeded games headlessly, the way BatchSimulator does, and reports how many tetrominoes are locked per second
+//alongside the games per second. Each game is played to a loss or MAX_PIECES pieces, and each game takes the next seed, so
+//every run plays the same games in the same order.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GameBenchmark {
+
+	private static final int MAX_PIECES = 500;
+
+	@Param({"bot", "random"})
+	public String policy;
+
+	private InputPolicy inputPolicy;
+	private long seed;
+
+	// Counted over each iteration and divided by its time, so JMH reports pieces per second beside the score
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long pieces;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			pieces = 0;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		inputPolicy = policy.equals("bot") ? new TetrisBot() : new RandomInputPolicy();
+		seed = 0;
+	}
+
+	@Benchmark
+	public int playGame(Counters counters) {
+		MessageSystem messageSystem = new MessageSystem();
+		TetrisBoard board = new TetrisBoard(seed, 1, messageSystem);
+
+		inputPolicy.reset(seed++);
+		while (!board.isLoss() && board.getPiecesLocked() < MAX_PIECES) {
+			inputPolicy.act(board, messageSystem);
+			board.tick();
+		}
+
+		counters.pieces += board.getPiecesLocked();
+		return board.getScore();
+	}
+}
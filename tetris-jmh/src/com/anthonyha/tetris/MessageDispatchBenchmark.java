@@ -0,0 +1,134 @@
+package com.anthonyha.tetris;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Posts messages to listeners that only count them, like most of the game's listeners do for SHIFTED and SOFT_DROPPED.
+//Posting straight away and posting into the queue that deliverQueued empties at the end of each tick are measured separately,
+//and posting straight away is measured again through the EnumMap of ArrayLists MessageSystem dispatched through before.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageDispatchBenchmark {
+
+	// Messages queued between deliveries, about what a busy tick posts
+	private static final int BATCH = 16;
+
+	// How MessageSystem dispatched before it was indexed by ordinal
+	private static class MapMessageSystem {
+		private Map<Message, List<MessageListener>> listenerMap;
+
+		public MapMessageSystem() {
+			listenerMap = new EnumMap<Message, List<MessageListener>>(Message.class);
+			for (int i = 0; i < Message.values().length; ++i) {
+				listenerMap.put(Message.values()[i], new ArrayList<MessageListener>());
+			}
+		}
+
+		public void add(MessageListener listener, Message m) {
+			listenerMap.get(m).add(listener);
+		}
+
+		public void postMessage(Message m) {
+			List<MessageListener> listeners = listenerMap.get(m);
+			for (int i = 0; i < listeners.size(); ++i) {
+				listeners.get(i).recieveMessage(m);
+			}
+		}
+
+		public void postMessage(Message m, int extra) {
+			List<MessageListener> listeners = listenerMap.get(m);
+			for (int i = 0; i < listeners.size(); ++i) {
+				listeners.get(i).recieveMessage(m, extra);
+			}
+		}
+	}
+
+	private static class CountingListener extends AbstractMessageListener {
+		int count;
+
+		@Override
+		public void recieveMessage(Message message) {
+			++count;
+		}
+
+		@Override
+		public void recieveMessage(Message message, int extra) {
+			count += extra;
+		}
+	}
+
+	@Param({"1", "3"})
+	public int listeners;
+
+	private MessageSystem messageSystem;
+	private MessageSystem queuedMessageSystem;
+	private MapMessageSystem mapMessageSystem;
+	private CountingListener listener;
+
+	@Setup
+	public void setUp() {
+		messageSystem = new MessageSystem();
+		queuedMessageSystem = new MessageSystem();
+		queuedMessageSystem.setQueued(Message.SHIFTED, true);
+		mapMessageSystem = new MapMessageSystem();
+
+		for (int i = 0; i < listeners; ++i) {
+			listener = new CountingListener();
+			messageSystem.add(listener, Message.SHIFTED);
+			messageSystem.add(listener, Message.ROW_CLEARED);
+			queuedMessageSystem.add(listener, Message.SHIFTED);
+			mapMessageSystem.add(listener, Message.SHIFTED);
+			mapMessageSystem.add(listener, Message.ROW_CLEARED);
+		}
+	}
+
+	@Benchmark
+	public int postMessage() {
+		messageSystem.postMessage(Message.SHIFTED);
+		return listener.count;
+	}
+
+	@Benchmark
+	public int postMessageWithExtra() {
+		messageSystem.postMessage(Message.ROW_CLEARED, 1);
+		return listener.count;
+	}
+
+	@Benchmark
+	public int postMessageThroughMap() {
+		mapMessageSystem.postMessage(Message.SHIFTED);
+		return listener.count;
+	}
+
+	@Benchmark
+	public int postMessageWithExtraThroughMap() {
+		mapMessageSystem.postMessage(Message.ROW_CLEARED, 1);
+		return listener.count;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int postQueued() {
+		for (int i = 0; i < BATCH; ++i) {
+			queuedMessageSystem.postMessage(Message.SHIFTED);
+		}
+		queuedMessageSystem.deliverQueued();
+		return listener.count;
+	}
+}
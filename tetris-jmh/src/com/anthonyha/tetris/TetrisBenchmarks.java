@@ -0,0 +1,34 @@
+package com.anthonyha.tetris;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+//Runs the benchmarks with the GC profiler on, so every result comes with the bytes it allocated per operation, and writes
+//the results as JSON for BenchmarkHistory. Needs jmh-core on the class path, and jmh-generator-annprocess on the annotation
+//processor path when compiling, as well as tetris-core.
+public class TetrisBenchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+		String results = args.length > 1 ? args[1] : "jmh-result.json";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.forks(2)
+				.warmupIterations(5)
+				.warmupTime(TimeValue.seconds(1))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(1))
+				.resultFormat(ResultFormatType.JSON)
+				.result(results)
+				.build();
+
+		new Runner(options).run();
+	}
+}
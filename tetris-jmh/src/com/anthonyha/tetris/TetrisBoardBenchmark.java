@@ -0,0 +1,74 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.anthonyha.tetris.MessageSystem.Message;
+
+//Hard drops onto each kind of stack, once with nothing to clear and once into a four line well, which runs clearFullLines
+//through a tetris. Every drop starts from a snapshot of the same board, so restoring the board is measured on its own
+//too, to be taken away from the others.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TetrisBoardBenchmark {
+
+	private static final long SEED = 1;
+
+	@Param({BoardFixtures.EMPTY, BoardFixtures.HALF, BoardFixtures.GARBAGE})
+	public String stack;
+
+	private MessageSystem messageSystem;
+	private TetrisBoard board;
+	private BoardSnapshot snapshot;
+
+	private MessageSystem readyMessageSystem;
+	private TetrisBoard readyBoard;
+	private BoardSnapshot readySnapshot;
+
+	@Setup
+	public void setUp() {
+		messageSystem = new MessageSystem();
+		board = BoardFixtures.create(stack, SEED, messageSystem);
+		snapshot = new BoardSnapshot(board);
+		board.saveState(snapshot);
+
+		readyMessageSystem = new MessageSystem();
+		readyBoard = BoardFixtures.createTetrisReady(stack, SEED, readyMessageSystem);
+		readySnapshot = new BoardSnapshot(readyBoard);
+		readyBoard.saveState(readySnapshot);
+
+		readyMessageSystem.postMessage(Message.HARD_DROP);
+		if (readyBoard.getTotalLines() != BoardFixtures.WELL_DEPTH) {
+			throw new IllegalStateException("The I cleared " + readyBoard.getTotalLines() + " lines on the " + stack + " stack");
+		}
+	}
+
+	@Benchmark
+	public int restore() {
+		board.restoreState(snapshot);
+		return board.getScore();
+	}
+
+	@Benchmark
+	public int hardDrop() {
+		board.restoreState(snapshot);
+		messageSystem.postMessage(Message.HARD_DROP);
+		return board.getScore();
+	}
+
+	@Benchmark
+	public int hardDropTetris() {
+		readyBoard.restoreState(readySnapshot);
+		readyMessageSystem.postMessage(Message.HARD_DROP);
+		return readyBoard.getTotalLines();
+	}
+}
@@ -0,0 +1,70 @@
+package com.anthonyha.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.anthonyha.tetris.Tetromino.TetrominoNames;
+
+//Rotates tetrominoes and draws them from RandomTetrominoFactory, the way the board does for every rotation and every spawn.
+//Drawn pieces are handed straight back, like the board frees each one it is done with, so the factory's pool stays warm.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TetrominoBenchmark {
+
+	private static final int PIECES = 1024;
+	private static final long SEED = 1;
+
+	private Tetromino[] tetrominoes = new Tetromino[BoardFixtures.pieces.length];
+	private TetrominoNames[] sequence;
+	private RandomTetrominoFactory factory;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < tetrominoes.length; ++i) {
+			TetrominoNames name = BoardFixtures.pieces[i];
+			tetrominoes[i] = new Tetromino(name, RandomTetrominoFactory.getKickTable(name));
+		}
+
+		sequence = BoardFixtures.pieceSequence(PIECES, SEED);
+		factory = new RandomTetrominoFactory();
+		factory.setSeed(SEED);
+	}
+
+	// Turns one of each tetromino a quarter, in turn
+	@Benchmark
+	public Tetromino rotateClockwise() {
+		next = next + 1 == tetrominoes.length ? 0 : next + 1;
+		return tetrominoes[next].rotateClockwise();
+	}
+
+	// Draws the next piece from the shuffled bags
+	@Benchmark
+	public TetrominoNames getPiece() {
+		Tetromino tetromino = factory.getPiece();
+		factory.freePiece(tetromino);
+		return tetromino.getName();
+	}
+
+	// Draws each piece of a fixed sequence by name, the way the board does for ghosts, holds and restores
+	@Benchmark
+	@OperationsPerInvocation(PIECES)
+	public int getPieceByName() {
+		int sum = 0;
+		for (int i = 0; i < PIECES; ++i) {
+			Tetromino tetromino = factory.getPiece(sequence[i]);
+			factory.freePiece(tetromino);
+			sum += tetromino.blockGrid.getWidth();
+		}
+		return sum;
+	}
+}
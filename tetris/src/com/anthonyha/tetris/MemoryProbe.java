@@ -0,0 +1,17 @@
+package com.anthonyha.tetris;
+
+//Heap and garbage collection numbers for the performance overlay. The APIs for them differ on every platform, and some,
+//like GWT's, have none, so each launcher passes its own probe to Tetris, or none at all.
+public interface MemoryProbe {
+	// Bytes of heap in use
+	public long getHeapUsed();
+	
+	// Bytes the heap can grow to
+	public long getHeapMax();
+	
+	// Garbage collections since the start
+	public long getGcCount();
+	
+	// Milliseconds spent collecting garbage since the start, or -1 if the platform doesn't say
+	public long getGcTime();
+}
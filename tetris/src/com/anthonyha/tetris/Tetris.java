@@ -1,5 +1,7 @@
 package com.anthonyha.tetris;
 
+import com.anthonyha.tetris.MessageSystem.Message;
+
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
@@ -14,6 +16,8 @@ public class Tetris extends Game {
 	public TetrisSoundSystem tetrisSoundSystem;
 	public TetrisInputSystem tetrisInputSystem;
 	public MessageSystem messageSystem;
+	public Metrics metrics;
+	public final MemoryProbe memoryProbe; // Null where the launcher has none
 	
 	public TextureAtlas gameAtlas;
 	public TextureAtlas uiAtlas;
@@ -29,11 +33,31 @@ public class Tetris extends Game {
 	public TetrisMainMenu mainMenu;
 	public TetrisGameScreen gameScreen;
 	
+	public Tetris() {
+		this(null);
+	}
+	
+	public Tetris(MemoryProbe memoryProbe) {
+		this.memoryProbe = memoryProbe;
+	}
+	
 	@Override
 	public void create() {
 		batch = new SpriteBatch();
 		
+		metrics = new Metrics();
 		messageSystem = new MessageSystem();
+		messageSystem.setMetrics(metrics);
+		
+		// What the board tells the presentation about is delivered in one batch after each tick, not while the board is mid-change
+		messageSystem.setQueued(Message.SCORE_CHANGE, true);
+		messageSystem.setQueued(Message.ROWS_SCORED, true);
+		messageSystem.setQueued(Message.ROW_CLEARED, true);
+		messageSystem.setQueued(Message.HARD_DROPPED, true);
+		messageSystem.setQueued(Message.SOFT_DROPPED, true);
+		messageSystem.setQueued(Message.SHIFTED, true);
+		messageSystem.setQueued(Message.LEVEL_UP, true);
+		
 		tetrisSoundSystem = new TetrisSoundSystem(messageSystem);
 		tetrisInputSystem = new TetrisInputSystem(this);
 		
@@ -74,5 +98,10 @@ public class Tetris extends Game {
 		
 		mainMenu.dispose();
 		gameScreen.dispose();
+		
+		// Keep what was measured this session
+		StringBuilder text = new StringBuilder();
+		metrics.appendTo(text);
+		Gdx.files.local("metrics.txt").writeString(text.toString(), false);
 	}
 }
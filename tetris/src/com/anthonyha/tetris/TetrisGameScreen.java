@@ -5,6 +5,7 @@ import com.anthonyha.tetris.Tetromino.TetrominoNames;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL10;
 import com.badlogic.gdx.graphics.OrthographicCamera;
@@ -61,18 +62,37 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 	private static final int essentialWidth = 700;
 	private static final int essentialHeight = 900;
 	private static final float pauseTime = 0.3f;
+	private static final int undoLimit = 100; // Placements the pause menu can step back through in practice
 	
 	private TetrisBoard gameBoard;
+	private ReplayRecorder replayRecorder;
+	private FileHandle replayFile;
 	
 	private Stage stage;
 	private Table pauseMenu;
 	private Table gameOverMenu;
+	private Label pauseHeader;
+	private TextButton resumeButton, undoButton, restartButton, mainMenuButton;
+	private AtlasRegion pauseMenuFillerTexture;
 	
 	private boolean isPaused = false;
+	private boolean practice = false; // Practice games can be undone, so their replays can't count as scores
+	
+	private Metrics.Timer updateTimer, renderTimer;
+	private Metrics.Histogram spritesPerFrame, renderCallsPerFrame;
+	private Metrics.Counter spritesDrawn, piecesLocked, linesCleared;
+	private int sprites; // Drawn so far this frame
+	
+	private TetrisPerformanceHud performanceHud;
+	private boolean showPerformanceHud = false;
 	
 	ParticleEffectPool tetrisExplosionEffectPool;
 	Array<PooledEffect> effects;
 	
+	// Rows cleared during a batch of messages, which get one explosion between them
+	private boolean inBatch;
+	private int rowsCleared, rowSum;
+	
 	public TetrisGameScreen(final Tetris game) {
 		this.game = game;
 		
@@ -87,7 +107,17 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		game.messageSystem.add(this, Message.GAME_PAUSED);
 		game.messageSystem.add(this, Message.GAME_RESUMED);
 		game.messageSystem.add(this, Message.GAME_OVER);
-		
+		game.messageSystem.add(this, Message.LOCKED_IN);
+		game.messageSystem.addBatchListener(this);
+		
+		updateTimer = game.metrics.timer("update");
+		renderTimer = game.metrics.timer("render");
+		spritesPerFrame = game.metrics.histogram("sprites per frame");
+		renderCallsPerFrame = game.metrics.histogram("render calls per frame");
+		spritesDrawn = game.metrics.counter("sprites drawn");
+		piecesLocked = game.metrics.counter("pieces locked");
+		linesCleared = game.metrics.counter("lines cleared");
+		performanceHud = new TetrisPerformanceHud(game.memoryProbe);
 		
 		// Mapping each tetromino name to its respective sprite
 		blockSprites = new ObjectMap<TetrominoNames, Sprite>();
@@ -124,6 +154,10 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		
 		// Create game model
 		gameBoard = new TetrisBoard(TimeUtils.millis(), 1, game.messageSystem);
+		
+		// Record every game, which only takes the seed and the commands. Recording starts once the game is first shown.
+		replayRecorder = new ReplayRecorder(game.messageSystem, 4096);
+		replayFile = Gdx.files.local("replays/" + gameBoard.getSeed() + ".replay");
 
 		// Create camera and center it
 		camera = new OrthographicCamera();
@@ -147,18 +181,19 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		pauseOverlay.setBounds(0, 0, stage.getWidth(), stage.getHeight());
 		pauseOverlay.setColor(Color.CLEAR);
 
-		AtlasRegion pauseMenuFillerTexture = game.uiAtlas.findRegion("PauseMenuFiller"); // Texture to go inbetween each button
+		pauseMenuFillerTexture = game.uiAtlas.findRegion("PauseMenuFiller"); // Texture to go inbetween each button
 		// Add pause menu
 		pauseMenu = new Table();
 		
 		pauseMenu.setFillParent(true);
 		
-		Label pauseHeader = new Label("Pause", game.tetrisUI.pauseHeaderStyle);
+		pauseHeader = new Label("Pause", game.tetrisUI.pauseHeaderStyle);
 		pauseHeader.setAlignment(Align.center);
 		
-		TextButton resumeButton = new TextButton("Resume", game.tetrisUI.darkButtonStyle);
-		TextButton restartButton = new TextButton("Restart", game.tetrisUI.darkButtonStyle);
-		TextButton mainMenuButton = new TextButton("Back to Menu", game.tetrisUI.darkButtonStyle);
+		resumeButton = new TextButton("Resume", game.tetrisUI.darkButtonStyle);
+		undoButton = new TextButton("Undo", game.tetrisUI.darkButtonStyle);
+		restartButton = new TextButton("Restart", game.tetrisUI.darkButtonStyle);
+		mainMenuButton = new TextButton("Back to Menu", game.tetrisUI.darkButtonStyle);
 		
 		resumeButton.addListener(new ChangeListener() {
 			@Override
@@ -167,6 +202,13 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 			}
 		});
 		
+		undoButton.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				game.messageSystem.postMessage(Message.UNDO);
+			}
+		});
+		
 		restartButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
@@ -182,13 +224,7 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 			}
 		});
 		
-		pauseMenu.add(pauseHeader).width(TetrisUI.buttonWidth);
-		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
-		pauseMenu.add(resumeButton).width(TetrisUI.buttonWidth);
-		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
-		pauseMenu.add(restartButton).width(TetrisUI.buttonWidth);
-		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
-		pauseMenu.add(mainMenuButton).width(TetrisUI.buttonWidth).spaceBottom(TetrisUI.spacing);
+		fillPauseMenu();
 		pauseMenu.setVisible(false);
 		
 		// Game Over menu which is the same as pause except without resume button
@@ -239,7 +275,9 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 
 	@Override
 	public void dispose() {
+		finishReplay();
 		stage.dispose();
+		performanceHud.dispose();
 	}
 
 	@Override
@@ -251,19 +289,26 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		Gdx.gl.glClearColor(1f, 1f, 1f, 1);
 		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
 		
+		updateTimer.start();
 		gameBoard.update(delta);
+		replayRecorder.update();
+		long updateTime = updateTimer.stop();
 		
+		renderTimer.start();
+		sprites = 0;
 		
 		game.batch.setProjectionMatrix(camera.combined);
 		game.batch.begin();
 		
 		game.batch.draw(board, xBoardOffset, yBoardOffset); // Render board
+		++sprites;
 		
-		drawBlockGrid(gameBoard.ghostTetromino.blockGrid, gameBoard.getGhostVector().x, gameBoard.getGhostVector().y); // Render ghost piece
+		drawBlockGrid(gameBoard.ghostTetromino.blockGrid, gameBoard.getGhostX(), gameBoard.getGhostY()); // Render ghost piece
 		drawBlockGrid(gameBoard.gameGrid, 0, 0); // Render game grid		
 		drawBlockGrid(gameBoard.activeTetromino.blockGrid, gameBoard.tetrominoPos.x, gameBoard.tetrominoPos.y); // Render active tetromino
 		
 		background.draw(game.batch);
+		++sprites;
 		
 		// Render hold		
 		if (gameBoard.heldTetromino != null) {
@@ -273,6 +318,7 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 			overlaySprite = queueOverlaySprites.get(blockName);
 			overlaySprite.setPosition(620, 1080-444);
 			overlaySprite.draw(game.batch);
+			++sprites;
 
 			drawBlockGrid(tetromino.blockGrid, -Tetromino.origins.get(blockName).x + 1, -Tetromino.origins.get(blockName).y + 1, 632 + tetrominoRenderOffsets.get(blockName).x, 1080-452 + tetrominoRenderOffsets.get(blockName).y);
 			
@@ -280,6 +326,7 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 			overlaySprite = queueOverlaySprites.get(TetrominoNames.GHOST);
 			overlaySprite.setPosition(620, 1080-444);
 			overlaySprite.draw(game.batch);
+			++sprites;
 		}
 		
 		
@@ -287,8 +334,9 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		overlaySprite = queueOverlaySprites.get(gameBoard.tetrominoQueue.get(0).getName());
 		overlaySprite.setPosition(1132, 1080-444);
 		overlaySprite.draw(game.batch);
+		++sprites;
 
-		for (int i = 0; i < gameBoard.tetrominoQueue.size; ++i) {
+		for (int i = 0; i < gameBoard.tetrominoQueue.size(); ++i) {
 			tetromino = gameBoard.tetrominoQueue.get(i);
 			blockName = tetromino.getName();
 			
@@ -313,10 +361,23 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		
 		stage.act();
 		stage.draw();
+		
+		long renderTime = renderTimer.stop();
+		int renderCalls = game.batch.renderCalls + stage.getSpriteBatch().renderCalls; // The stage draws with a batch of its own
+		spritesPerFrame.record(sprites);
+		spritesDrawn.add(sprites);
+		renderCallsPerFrame.record(renderCalls);
+		
+		performanceHud.record(delta, updateTime, renderTime, sprites, renderCalls);
+		if (showPerformanceHud) {
+			performanceHud.draw(game.batch);
+		}
 	}
 	
 	@Override
 	public void resize(int width, int height) {
+		performanceHud.resize(width, height);
+		
 		double aspectRatio = (double) width / height;
 
 		if (width < essentialWidth) {
@@ -340,6 +401,8 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 
 	@Override
 	public void pause() {
+		// The app may never come back from here, so save what has been recorded
+		replayRecorder.flush();
 	}
 
 	@Override
@@ -386,6 +449,10 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 			
 			break;
 			
+		case LOCKED_IN:
+			piecesLocked.increment();
+			break;
+			
 		default:
 			break;
 		}
@@ -395,9 +462,14 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 	public void recieveMessage(MessageSystem.Message message, int extra) {
 		switch(message) {
 		case ROW_CLEARED:
-			PooledEffect effect = tetrisExplosionEffectPool.obtain();
-			effect.setPosition(800+160, 1080-860+extra*32);
-			effects.add(effect);
+			linesCleared.increment();
+			
+			if (inBatch) {
+				++rowsCleared;
+				rowSum += extra;
+			} else {
+				explode(extra);
+			}
 			break;
 			
 		default:
@@ -405,6 +477,28 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		}
 	}
 	
+	@Override
+	public void beginBatch() {
+		inBatch = true;
+		rowsCleared = 0;
+		rowSum = 0;
+	}
+	
+	@Override
+	public void endBatch() {
+		inBatch = false;
+		if (rowsCleared > 0) {
+			// One explosion per clear, in the middle of the rows it took
+			explode((float) rowSum / rowsCleared);
+		}
+	}
+	
+	private void explode(float row) {
+		PooledEffect effect = tetrisExplosionEffectPool.obtain();
+		effect.setPosition(800+160, 1080-860+row*32);
+		effects.add(effect);
+	}
+	
 	@Override
 	public void recieveMessage(MessageSystem.Message message, MessageSystem.Extra extra) {
 		switch(message) {
@@ -445,6 +539,10 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		return isPaused;
 	}
 	
+	public void togglePerformanceHud() {
+		showPerformanceHud = !showPerformanceHud;
+	}
+	
 	private String padNumber(int num, int pad) {
 		StringBuilder stringBuilder = new StringBuilder();
 		String numberString = String.valueOf(num);
@@ -458,6 +556,7 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 	private void drawBlock(Sprite blockSprite, int x, int y) {
 		blockSprite.setPosition(x, y);
 		blockSprite.draw(game.batch);
+		++sprites;
 	}
 	
 	private void drawBlockGrid(BlockGrid grid, int xGrid, int yGrid) {
@@ -469,7 +568,7 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		
 		for (int x = 0; x < grid.getWidth(); ++x) {
 			for (int y = 0; y < grid.getHeight(); ++y) {
-				if (grid.getValue(x, y) && grid.getBlock(x, y).name != TetrominoNames.GHOST) {
+				if (grid.getValue(x, y) && grid.getName(x, y) != TetrominoNames.GHOST) {
 					drawBlock(dropShadow, (x + xGrid - 1) * scale + xOrigin - 15, (y + yGrid - 1) * scale + yOrigin - 15);
 				}
 			}
@@ -478,15 +577,64 @@ public class TetrisGameScreen extends AbstractMessageListener implements Screen
 		for (int x = 0; x < grid.getWidth(); ++x) {
 			for (int y = 0; y < grid.getHeight(); ++y) {
 				if (grid.getValue(x, y)) {
-					blockSprite = blockSprites.get(grid.getBlock(x, y).name);
+					blockSprite = blockSprites.get(grid.getName(x, y));
 					drawBlock(blockSprite, (x + xGrid - 1) * scale + xOrigin, (y + yGrid - 1) * scale + yOrigin);
 				}
 			}
 		}
 	}
 
+	// Lays the pause menu's buttons out, with undo only in practice
+	private void fillPauseMenu() {
+		pauseMenu.clear();
+		pauseMenu.add(pauseHeader).width(TetrisUI.buttonWidth);
+		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
+		pauseMenu.add(resumeButton).width(TetrisUI.buttonWidth);
+		if (practice) {
+			pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
+			pauseMenu.add(undoButton).width(TetrisUI.buttonWidth);
+		}
+		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
+		pauseMenu.add(restartButton).width(TetrisUI.buttonWidth);
+		pauseMenu.row(); pauseMenu.add(new Image(pauseMenuFillerTexture)).width(TetrisUI.buttonWidth - 16); pauseMenu.row();
+		pauseMenu.add(mainMenuButton).width(TetrisUI.buttonWidth).spaceBottom(TetrisUI.spacing);
+	}
+	
+	// Switches between normal games and practice ones, which can be undone. Switching ends the game being played,
+	// along with its replay, and starts a new one. Called by the main menu before the screen is shown.
+	public void setPractice(boolean practice) {
+		if (practice == this.practice) {
+			return;
+		}
+		
+		this.practice = practice;
+		finishReplay();
+		gameBoard.setUndoLimit(practice ? undoLimit : 0);
+		gameBoard.newGame(TimeUtils.millis());
+		replayFile = Gdx.files.local("replays/" + gameBoard.getSeed() + ".replay");
+		fillPauseMenu();
+	}
+	
+	public boolean isPractice() {
+		return practice;
+	}
+	
+	// Ends the replay, and deletes it if the game never got as far as locking a piece
+	private void finishReplay() {
+		if (replayRecorder.isRecording()) {
+			boolean empty = replayRecorder.isEmpty();
+			replayRecorder.finish();
+			if (empty) {
+				replayFile.delete();
+			}
+		}
+	}
+
 	@Override
 	public void show() {
+		if (!replayRecorder.isRecording() && replayRecorder.getError() == null) {
+			replayRecorder.start(gameBoard, replayFile.write(false));
+		}
 		Gdx.input.setInputProcessor(new InputMultiplexer(stage, game.tetrisInputSystem));
 		game.messageSystem.postMessage(Message.UNPAUSE);
 	}
@@ -65,6 +65,10 @@ public class TetrisInputSystem extends AbstractMessageListener implements InputP
 			}
 			return true;
 			
+		} else if (keycode == Keys.F3) {
+			game.gameScreen.togglePerformanceHud();
+			return true;
+			
 		} else if (keycode == Keys.R){
 			if (game.gameScreen.isPaused() && game.getScreen() == game.gameScreen) {
 				messageSystem.postMessage(Message.RESTART_GAME);
@@ -36,6 +36,7 @@ public class TetrisMainMenu implements Screen {
 		// Filling the main menu
 		Image mainMenuTitle = new Image(game.uiAtlas.findRegion("Title"));
 		TextButton playButton = new TextButton("Play Game", game.tetrisUI.playButtonStyle);
+		TextButton practiceButton = new TextButton("Practice", game.tetrisUI.normalButtonStyle);
 		TextButton optionButton = new TextButton("Options", game.tetrisUI.normalButtonStyle);
 		TextButton exitButton = new TextButton("Exit", game.tetrisUI.normalButtonStyle);
 		
@@ -44,6 +45,8 @@ public class TetrisMainMenu implements Screen {
 		mainMenu.row();
 		mainMenu.add(playButton).width(TetrisUI.buttonWidth).spaceBottom(TetrisUI.spacing);
 		mainMenu.row();
+		mainMenu.add(practiceButton).width(TetrisUI.buttonWidth).spaceBottom(TetrisUI.spacing);
+		mainMenu.row();
 		mainMenu.add(optionButton).width(TetrisUI.buttonWidth).spaceBottom(TetrisUI.spacing);
 		mainMenu.row();
 		mainMenu.add(exitButton).width(TetrisUI.buttonWidth).padBottom(TetrisUI.spacing);
@@ -83,6 +86,15 @@ public class TetrisMainMenu implements Screen {
 		playButton.addListener(new ChangeListener() {
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
+				game.gameScreen.setPractice(false);
+				game.setScreen(game.gameScreen);
+			}
+		});
+		
+		practiceButton.addListener(new ChangeListener() {
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				game.gameScreen.setPractice(true);
 				game.setScreen(game.gameScreen);
 			}
 		});
@@ -0,0 +1,160 @@
+package com.anthonyha.tetris;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StringBuilder;
+
+//Overlay of where each frame goes: a graph of recent frame times split into update and render, sprites and render calls,
+//and the heap in use and garbage collections per second from the launcher's MemoryProbe, if it has one. It draws through the game's SpriteBatch with one cached font and
+//a single white texture, and all of its text is built in one reused StringBuilder, so showing it allocates nothing
+//and barely moves the numbers it shows.
+public class TetrisPerformanceHud implements Disposable {
+
+	private static final int FRAMES = 120; // Frames in the graph
+	private static final int BAR_WIDTH = 3;
+	private static final float PIXELS_PER_MS = 4f;
+	private static final float TARGET_MS = 1000f / 60f;
+
+	private final BitmapFont font;
+	private final Texture white;
+	private final Matrix4 projection = new Matrix4();
+	private final StringBuilder text = new StringBuilder(256);
+
+	// Times of the last frames in milliseconds, oldest at next
+	private final float[] updateTimes = new float[FRAMES];
+	private final float[] renderTimes = new float[FRAMES];
+	private final float[] frameTimes = new float[FRAMES];
+	private int next;
+
+	private int sprites, renderCalls;
+
+	// Garbage collections counted since the last second was over, and in the last whole second
+	private final MemoryProbe memoryProbe;
+	private long gcCount, gcTime;
+	private long lastGcCount, lastGcTime;
+	private float secondTimer;
+
+	// memoryProbe may be null, which leaves the memory line out
+	public TetrisPerformanceHud(MemoryProbe memoryProbe) {
+		font = new BitmapFont();
+
+		Pixmap pixmap = new Pixmap(1, 1, Format.RGBA8888);
+		pixmap.setColor(Color.WHITE);
+		pixmap.fill();
+		white = new Texture(pixmap);
+		pixmap.dispose();
+
+		this.memoryProbe = memoryProbe;
+		if (memoryProbe != null) {
+			lastGcCount = memoryProbe.getGcCount();
+			lastGcTime = memoryProbe.getGcTime();
+		}
+
+		resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+	}
+
+	public void resize(int width, int height) {
+		projection.setToOrtho2D(0, 0, width, height);
+	}
+
+	// Add a frame's measurements: its length in seconds, the nanoseconds spent updating and rendering it, and what it drew
+	public void record(float delta, long updateNanos, long renderNanos, int sprites, int renderCalls) {
+		frameTimes[next] = delta * 1000f;
+		updateTimes[next] = updateNanos / 1e6f;
+		renderTimes[next] = renderNanos / 1e6f;
+		next = (next + 1) % FRAMES;
+
+		this.sprites = sprites;
+		this.renderCalls = renderCalls;
+
+		secondTimer += delta;
+		if (secondTimer >= 1f) {
+			secondTimer -= 1f;
+
+			if (memoryProbe != null) {
+				long count = memoryProbe.getGcCount();
+				long time = memoryProbe.getGcTime();
+				gcCount = count - lastGcCount;
+				gcTime = time - lastGcTime;
+				lastGcCount = count;
+				lastGcTime = time;
+			}
+		}
+	}
+
+	// Draw the overlay in screen pixels. Begins and ends the batch itself, and leaves it with this projection.
+	public void draw(SpriteBatch batch) {
+		batch.setProjectionMatrix(projection);
+		batch.begin();
+
+		// Each bar is a frame: update at the bottom, render on top, and the rest of the frame above that
+		float x = 10;
+		float y = 10;
+		for (int i = 0; i < FRAMES; ++i) {
+			int frame = (next + i) % FRAMES;
+			float update = updateTimes[frame] * PIXELS_PER_MS;
+			float render = renderTimes[frame] * PIXELS_PER_MS;
+			float rest = Math.max(0f, frameTimes[frame] * PIXELS_PER_MS - update - render);
+
+			batch.setColor(0.2f, 0.6f, 1f, 0.8f);
+			batch.draw(white, x, y, BAR_WIDTH - 1, update);
+			batch.setColor(1f, 0.6f, 0.1f, 0.8f);
+			batch.draw(white, x, y + update, BAR_WIDTH - 1, render);
+			batch.setColor(0.5f, 0.5f, 0.5f, 0.5f);
+			batch.draw(white, x, y + update + render, BAR_WIDTH - 1, rest);
+
+			x += BAR_WIDTH;
+		}
+
+		// Line at a 60 FPS frame
+		batch.setColor(1f, 0.2f, 0.2f, 0.8f);
+		batch.draw(white, 10, y + TARGET_MS * PIXELS_PER_MS, FRAMES * BAR_WIDTH, 1);
+		batch.setColor(Color.WHITE);
+
+		int last = (next + FRAMES - 1) % FRAMES;
+
+		text.setLength(0);
+		text.append("frame ");
+		appendMs(frameTimes[last]);
+		text.append("  update ");
+		appendMs(updateTimes[last]);
+		text.append("  render ");
+		appendMs(renderTimes[last]);
+		font.draw(batch, text, x + 10, y + 60);
+
+		text.setLength(0);
+		text.append("sprites ").append(sprites).append("  render calls ").append(renderCalls);
+		font.draw(batch, text, x + 10, y + 40);
+
+		if (memoryProbe != null) {
+			text.setLength(0);
+			text.append("heap ").append((int) (memoryProbe.getHeapUsed() >> 20)).append(" / ").append((int) (memoryProbe.getHeapMax() >> 20))
+					.append(" MB  gc ").append((int) gcCount).append("/s");
+			if (lastGcTime >= 0) {
+				text.append(" ").append((int) gcTime).append(" ms/s");
+			}
+			font.draw(batch, text, x + 10, y + 20);
+		}
+
+		batch.end();
+	}
+
+	@Override
+	public void dispose() {
+		font.dispose();
+		white.dispose();
+	}
+
+	// Appends milliseconds to a tenth, without the allocation appending a float would make
+	private void appendMs(float ms) {
+		int tenths = Math.round(ms * 10f);
+		text.append(tenths / 10).append('.').append(tenths % 10).append(" ms");
+	}
+}
@@ -14,6 +14,10 @@ public class TetrisSoundSystem extends AbstractMessageListener implements Dispos
 	private Sound shiftSound, hardDropSound, success;
 	private Music theme;
 	
+	// Shifts heard during a batch of messages, which play one shift sound between them
+	private boolean inBatch;
+	private boolean shifted;
+	
 	public TetrisSoundSystem(MessageSystem m) {
 		// Register for messages
 		m.add(this, Message.SOFT_DROPPED);
@@ -25,6 +29,7 @@ public class TetrisSoundSystem extends AbstractMessageListener implements Dispos
 		m.add(this, Message.GAME_RESUMED);
 		m.add(this, Message.RESTART_GAME);
 		m.add(this, Message.GAME_OVER);
+		m.addBatchListener(this);
 		
 		// Load sfx
 		shiftSound = Gdx.audio.newSound(Gdx.files.internal("sfx/shiftSound.wav"));
@@ -47,7 +52,11 @@ public class TetrisSoundSystem extends AbstractMessageListener implements Dispos
 		switch(message) {
 		case SOFT_DROPPED:
 		case SHIFTED:
-			shiftSound.play(sfxVolume * 0.5f);
+			if (inBatch) {
+				shifted = true;
+			} else {
+				shiftSound.play(sfxVolume * 0.5f);
+			}
 			break;
 			
 		case HARD_DROPPED:
@@ -105,6 +114,20 @@ public class TetrisSoundSystem extends AbstractMessageListener implements Dispos
 		}
 	}
 
+	@Override
+	public void beginBatch() {
+		inBatch = true;
+		shifted = false;
+	}
+	
+	@Override
+	public void endBatch() {
+		inBatch = false;
+		if (shifted) {
+			shiftSound.play(sfxVolume * 0.5f);
+		}
+	}
+
 	public float getMusicVolume() {
 		return musicVolume;
 	}